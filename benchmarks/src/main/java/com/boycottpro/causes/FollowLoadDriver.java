@@ -0,0 +1,189 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Replays synthetic follow/unfollow traffic against IncrementCauseFollowerHandler
+ * backed by InMemoryDynamoDbClient. Causes are picked from a Zipfian
+ * distribution so a handful of causes take most of the writes, and the fake
+ * enforces a per-partition write limit so hot causes throttle the way they do
+ * in production. Reports throughput, latency percentiles and status counts.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.boycottpro.causes.FollowLoadDriver threads=16 seconds=10 causes=10000 \
+ *     zipf=1.1 partitionLimit=1000 shardHot=10 shards=8
+ * </pre>
+ */
+public class FollowLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int causes = Integer.parseInt(options.getOrDefault("causes", "10000"));
+        double exponent = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+        int partitionLimit = Integer.parseInt(options.getOrDefault("partitionLimit", "1000"));
+        int shardHot = Integer.parseInt(options.getOrDefault("shardHot", "0"));
+        int shards = Integer.parseInt(options.getOrDefault("shards", "8"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100000"));
+
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        for (int i = 0; i < causes; i++) {
+            dynamoDb.putItem(PutItemRequest.builder()
+                    .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                    .item(Map.of("cause_id", AttributeValue.fromS(causeId(i)),
+                            "follower_count", AttributeValue.fromN("0")))
+                    .build());
+        }
+        CauseFollowerCounter admin = new CauseFollowerCounter(dynamoDb);
+        for (int i = 0; i < shardHot; i++) {
+            admin.enableSharding(causeId(i), shards);
+        }
+        dynamoDb.withPartitionWriteLimit(partitionLimit);
+
+        IncrementCauseFollowerHandler handler = new IncrementCauseFollowerHandler(dynamoDb);
+        Zipfian zipfian = new Zipfian(causes, exponent);
+        long[][] latencies = new long[threads][];
+        int[] recorded = new int[threads];
+        AtomicLongArray statuses = new AtomicLongArray(600);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        // handler error paths log every failure; keep the report readable
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discard);
+        System.setErr(discard);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            latencies[t] = new long[1 << 20];
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    APIGatewayProxyRequestEvent event = event(causeId(zipfian.next(random)),
+                            "user-" + random.nextInt(users), random.nextBoolean());
+                    long begin = System.nanoTime();
+                    APIGatewayProxyResponseEvent response = handler.handleRequest(event, null);
+                    long elapsed = System.nanoTime() - begin;
+                    statuses.incrementAndGet(response.getStatusCode());
+                    if (recorded[worker] == latencies[worker].length) {
+                        latencies[worker] = Arrays.copyOf(latencies[worker], recorded[worker] * 2);
+                    }
+                    latencies[worker][recorded[worker]++] = elapsed;
+                }
+            }, "follow-load-" + t);
+            workers[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - began) / 1e9;
+        System.setOut(out);
+        System.setErr(out);
+
+        int total = 0;
+        for (int count : recorded) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, offset, recorded[t]);
+            offset += recorded[t];
+        }
+        Arrays.sort(all);
+        TreeMap<Integer, Long> byStatus = new TreeMap<>();
+        for (int status = 0; status < statuses.length(); status++) {
+            if (statuses.get(status) > 0) {
+                byStatus.put(status, statuses.get(status));
+            }
+        }
+        out.printf("threads=%d causes=%d zipf=%.2f partitionLimit=%d/s shardHot=%d shards=%d%n",
+                threads, causes, exponent, partitionLimit, shardHot, shards);
+        out.printf("requests=%d throughput=%.0f req/s hottest cause share=%.1f%%%n",
+                total, total / elapsedSeconds, 100 * zipfian.probability(0));
+        out.printf("latency us p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                percentile(all, 50.0), percentile(all, 90.0), percentile(all, 99.0),
+                percentile(all, 99.9), total == 0 ? 0 : all[total - 1] / 1_000);
+        out.println("status counts " + byStatus);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000;
+    }
+
+    private static String causeId(int rank) {
+        return "cause-" + rank;
+    }
+
+    private static APIGatewayProxyRequestEvent event(String causeId, String sub, boolean increment) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", sub));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        event.setPathParameters(Map.of("cause_id", causeId, "increment", Boolean.toString(increment)));
+        return event;
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s.
+     */
+    static final class Zipfian {
+        private final double[] cumulative;
+
+        Zipfian(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+
+        double probability(int rank) {
+            return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of IncrementCauseFollowerHandler.handleRequest on each of its
+ * outcomes, with DynamoDB replaced by an in-memory stub. success alternates
+ * follow and unfollow so every call goes through the ledger transaction;
+ * duplicateFollow repeats one follow and is answered by the dedupe cache.
+ * conditionalCheckFailed rotates through more missing cause ids than
+ * NegativeCauseCache holds, so every call reaches the cancelled transaction;
+ * notFoundCached repeats one missing id and measures the cache hit instead.
+ * Run with -prof gc to get allocation rates alongside the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// one caller repeats the same toggles millions of times; keep the per-sub rate limiter out of the way
+@Fork(value = 2, jvmArgsAppend = {"-Xms512m", "-Xmx512m", "-DFOLLOW_RATE_LIMIT=0"})
+@State(Scope.Benchmark)
+public class HandleRequestBenchmark {
+
+    static final String MISSING_CAUSE_ID = "missing-cause";
+    // twice the cache capacity, so an id is always evicted before it comes round again
+    private static final int MISSING_IDS = 2 * NegativeCauseCache.DEFAULT_MAX_ENTRIES;
+
+    private IncrementCauseFollowerHandler handler;
+    private APIGatewayProxyRequestEvent follow;
+    private APIGatewayProxyRequestEvent unfollow;
+    private APIGatewayProxyRequestEvent duplicate;
+    private boolean following;
+    private APIGatewayProxyRequestEvent missingIncrement;
+    private APIGatewayProxyRequestEvent unauthorized;
+    private APIGatewayProxyRequestEvent[] conditionalCheckFailed;
+    private int nextMissing;
+    private APIGatewayProxyRequestEvent notFoundCached;
+    private PrintStream originalOut;
+    private PrintStream originalErr;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new IncrementCauseFollowerHandler(new StubDynamoDbClient(MISSING_CAUSE_ID));
+        follow = event("bench-cause", "true");
+        unfollow = event("bench-cause", "false");
+        duplicate = event("duplicate-cause", "true");
+        missingIncrement = event("bench-cause", null);
+        unauthorized = new APIGatewayProxyRequestEvent();
+        unauthorized.setPathParameters(Map.of("cause_id", "bench-cause", "increment", "true"));
+        conditionalCheckFailed = new APIGatewayProxyRequestEvent[MISSING_IDS];
+        for (int i = 0; i < MISSING_IDS; i++) {
+            conditionalCheckFailed[i] = event(MISSING_CAUSE_ID + "-" + i, "true");
+        }
+        notFoundCached = event(MISSING_CAUSE_ID, "true");
+        // the error paths log and FollowerMetrics writes an EMF line on every call; console I/O is not
+        // what is being measured
+        originalOut = System.out;
+        originalErr = System.err;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discard);
+        System.setErr(discard);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent success() {
+        following = !following;
+        return handler.handleRequest(following ? follow : unfollow, null);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent duplicateFollow() {
+        return handler.handleRequest(duplicate, null);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent validationError() {
+        return handler.handleRequest(missingIncrement, null);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent unauthorized() {
+        return handler.handleRequest(unauthorized, null);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent conditionalCheckFailed() {
+        APIGatewayProxyRequestEvent event = conditionalCheckFailed[nextMissing];
+        nextMissing = (nextMissing + 1) % MISSING_IDS;
+        return handler.handleRequest(event, null);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent notFoundCached() {
+        return handler.handleRequest(notFoundCached, null);
+    }
+
+    static APIGatewayProxyRequestEvent event(String causeId, String increment) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", "11111111-2222-3333-4444-555555555555"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        Map<String, String> pathParams = new HashMap<>();
+        pathParams.put("cause_id", causeId);
+        if (increment != null) {
+            pathParams.put("increment", increment);
+        }
+        event.setPathParameters(pathParams);
+        return event;
+    }
+}
@@ -0,0 +1,103 @@
+package com.boycottpro.causes;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares cold starts of the custom runtime as a native image against the
+ * same loop on a JVM from the shaded jar. Each sample starts a fresh process
+ * pointed at a StubRuntimeApi and records the time until its first
+ * /invocation/next poll (init), the time until the first response is posted,
+ * and the peak RSS of the process (VmHWM, Linux only). The event is a
+ * validation error, so the handler and its DynamoDbClient are built but no
+ * AWS call is made.
+ *
+ * <pre>
+ * mvn -q package -DskipTests && mvn -q -Pnative package -DskipTests
+ * java -cp benchmarks/target/benchmarks.jar com.boycottpro.causes.NativeStartupComparison 10
+ * </pre>
+ */
+public class NativeStartupComparison {
+
+    private static final String EVENT = "{\"pathParameters\":{\"cause_id\":\"cause-123\",\"increment\":\"maybe\"},"
+            + "\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"startup-probe\"}}}}";
+
+    public static void main(String[] args) throws Exception {
+        int forks = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Path jar = Path.of("target", "increment-cause-follower-lambda.jar");
+        Path bootstrap = Path.of("target", "bootstrap");
+        if (Files.exists(jar)) {
+            report("jvm", forks, List.of(java, "-XX:+TieredCompilation", "-XX:TieredStopAtLevel=1",
+                    "-cp", jar.toString(), NativeRuntime.class.getName()));
+        } else {
+            System.out.println("jvm    skipped, " + jar + " not built");
+        }
+        if (Files.exists(bootstrap)) {
+            report("native", forks, List.of(bootstrap.toString()));
+        } else {
+            System.out.println("native skipped, " + bootstrap + " not built (mvn -Pnative package)");
+        }
+    }
+
+    private static void report(String mode, int forks, List<String> command) throws Exception {
+        List<Long> init = new ArrayList<>();
+        List<Long> first = new ArrayList<>();
+        List<Long> rss = new ArrayList<>();
+        for (int i = 0; i < forks; i++) {
+            long[] sample = sample(command);
+            init.add(sample[0]);
+            first.add(sample[1]);
+            rss.add(sample[2]);
+        }
+        System.out.printf("%-6s forks=%d init_ms p50=%d p90=%d | first_response_ms p50=%d p90=%d | peak_rss_mb p50=%d%n",
+                mode, forks, percentile(init, 50), percentile(init, 90),
+                percentile(first, 50), percentile(first, 90), percentile(rss, 50));
+    }
+
+    private static long[] sample(List<String> command) throws Exception {
+        try (StubRuntimeApi runtimeApi = new StubRuntimeApi()) {
+            runtimeApi.enqueue("startup", EVENT, System.currentTimeMillis() + 30_000);
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT);
+            builder.environment().put("AWS_LAMBDA_RUNTIME_API", runtimeApi.address());
+            builder.environment().put("AWS_REGION", "us-east-1");
+            builder.environment().put("AWS_LAMBDA_FUNCTION_NAME", "increment-cause-follower-lambda");
+            long start = System.nanoTime();
+            Process process = builder.start();
+            try {
+                long polled = runtimeApi.awaitFirstPollNanos(30_000);
+                long responded = runtimeApi.awaitResult("startup", 30_000).receivedNanos;
+                return new long[]{(polled - start) / 1_000_000, (responded - start) / 1_000_000,
+                        peakRssMb(process.pid())};
+            } finally {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long peakRssMb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            }
+        } catch (Exception e) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
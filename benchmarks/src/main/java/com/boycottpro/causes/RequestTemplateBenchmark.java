@@ -0,0 +1,110 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.boycottpro.models.ResponseMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per call of the request and response pieces FollowRequestTemplate
+ * precompiles, against the same pieces built from scratch the way the handler
+ * used to. Compare gc.alloc.rate.norm (bytes/op) with -prof gc:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar RequestTemplateBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Benchmark)
+public class RequestTemplateBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CauseFollowerCounter counter;
+    private String causeId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        counter = new CauseFollowerCounter(new StubDynamoDbClient("missing-cause"));
+        causeId = "bench-cause";
+    }
+
+    @Benchmark
+    public Update counterUpdateFromScratch() {
+        // the update expression is rebuilt on every call, as it was before deltaExpression() cached it per hour
+        long hour = System.currentTimeMillis() / 3_600_000L;
+        long day = hour / 24;
+        StringBuilder remove = new StringBuilder();
+        for (long bucket = hour - 2L * CauseFollowerCounter.DEFAULT_VELOCITY_HOURS + 1;
+             bucket <= hour - CauseFollowerCounter.DEFAULT_VELOCITY_HOURS; bucket++) {
+            remove.append(remove.length() == 0 ? "" : ", ").append(CauseFollowerCounter.VELOCITY_HOUR_PREFIX).append(bucket);
+        }
+        for (long bucket = day - 2L * CauseFollowerCounter.DEFAULT_VELOCITY_DAYS + 1;
+             bucket <= day - CauseFollowerCounter.DEFAULT_VELOCITY_DAYS; bucket++) {
+            remove.append(", ").append(CauseFollowerCounter.VELOCITY_DAY_PREFIX).append(bucket);
+        }
+        String expression = "SET follower_count = if_not_exists(follower_count, :zero) + :delta"
+                + " ADD " + CauseFollowerCounter.VELOCITY_HOUR_PREFIX + hour + " :delta, "
+                + CauseFollowerCounter.VELOCITY_DAY_PREFIX + day + " :delta"
+                + " REMOVE " + remove;
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":delta", AttributeValue.fromN(Integer.toString(1)));
+        values.put(":zero", AttributeValue.fromN("0"));
+        return Update.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .updateExpression(expression)
+                .conditionExpression("attribute_exists(cause_id) AND attribute_not_exists("
+                        + CauseFollowerCounter.SHARD_COUNT_ATTR + ")")
+                .expressionAttributeValues(values)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    @Benchmark
+    public Update counterUpdateTemplate() {
+        return counter.transactionalDelta(causeId, "user-1", 1);
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent validationErrorFromScratch() throws Exception {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(400)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(objectMapper.writeValueAsString(new ResponseMessage(400,
+                        "increment not acceptable value", "Expected true/false")));
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent validationErrorTemplate() {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(400)
+                .withHeaders(FollowRequestTemplate.JSON_HEADERS)
+                .withBody(FollowRequestTemplate.BAD_INCREMENT_BODY);
+    }
+
+    @Benchmark
+    public String successBodyFromScratch() throws Exception {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", "cause record updated = true");
+        body.put("cause_id", causeId);
+        body.put("follower_count", 42L);
+        return objectMapper.writeValueAsString(body);
+    }
+
+    @Benchmark
+    public String successBodyTemplate() {
+        return FollowRequestTemplate.followerCountBody(causeId, 42L, "cause record updated = true");
+    }
+}
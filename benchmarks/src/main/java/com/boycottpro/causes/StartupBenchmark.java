@@ -0,0 +1,102 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold-start benchmark for IncrementCauseFollowerHandler. Every sample runs in a
+ * fresh JVM so class loading is measured the way Lambda sees it. Two modes are
+ * compared: "cold" builds the handler and serves the first request straight
+ * away, "primed" runs the beforeCheckpoint priming first (what SnapStart bakes
+ * into the snapshot). DynamoDB is replaced by a stub so only local work is timed.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.boycottpro.causes.StartupBenchmark 20
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("child")) {
+            runChild(args[1].equals("primed"));
+            return;
+        }
+        int forks = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        for (String mode : List.of("cold", "primed")) {
+            List<Long> jvm = new ArrayList<>();
+            List<Long> init = new ArrayList<>();
+            List<Long> first = new ArrayList<>();
+            for (int i = 0; i < forks; i++) {
+                String[] sample = fork(mode).trim().split(" ");
+                jvm.add(Long.parseLong(sample[0]));
+                init.add(Long.parseLong(sample[1]));
+                first.add(Long.parseLong(sample[2]));
+            }
+            System.out.printf("%-6s forks=%d jvm_start_ms p50=%d | init_us p50=%d p90=%d | first_invocation_us p50=%d p90=%d%n",
+                    mode, forks, percentile(jvm, 50), percentile(init, 50), percentile(init, 90),
+                    percentile(first, 50), percentile(first, 90));
+        }
+    }
+
+    private static void runChild(boolean primed) throws Exception {
+        long jvmStartMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.setProperty("aws.region", "us-east-1");
+
+        long t0 = System.nanoTime();
+        // built for its class-loading cost only; requests go to StubDynamoDbClient
+        DynamoDbClients.create();
+        IncrementCauseFollowerHandler handler = new IncrementCauseFollowerHandler(new StubDynamoDbClient("missing-cause"));
+        if (primed) {
+            handler.beforeCheckpoint(null);
+        }
+        long t1 = System.nanoTime();
+        handler.handleRequest(followEvent(), null);
+        long t2 = System.nanoTime();
+
+        System.out.println(jvmStartMs + " " + (t1 - t0) / 1_000 + " " + (t2 - t1) / 1_000);
+    }
+
+    private static String fork(String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                StartupBenchmark.class.getName(), "child", mode)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String last = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                last = line;
+            }
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException("benchmark child failed for mode " + mode);
+        }
+        return last;
+    }
+
+    private static long percentile(List<Long> samples, int p) {
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * p / 100));
+    }
+
+    static APIGatewayProxyRequestEvent followEvent() {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", "11111111-2222-3333-4444-555555555555"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        event.setPathParameters(Map.of("cause_id", "bench-cause", "increment", "true"));
+        return event;
+    }
+}
@@ -0,0 +1,97 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares bytes allocated per invocation by the POJO handler and the
+ * streaming handler on the same API Gateway events. Each handler alternates
+ * a follow and an unfollow of the same cause, so every invocation writes
+ * instead of being answered by RecentFollowCache. The POJO side includes
+ * binding the event and writing the response, which the Lambda runtime does
+ * on its behalf. DynamoDB is stubbed out.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.boycottpro.causes.StreamHandlerAllocationBenchmark 200000
+ * </pre>
+ */
+public class StreamHandlerAllocationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        byte[] follow;
+        try (InputStream input = StreamHandlerAllocationBenchmark.class
+                .getResourceAsStream("/api-gateway-follow-event.json")) {
+            follow = input.readAllBytes();
+        }
+        ObjectMapper runtimeMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ObjectNode unfollowEvent = (ObjectNode) runtimeMapper.readTree(follow);
+        unfollowEvent.put("path", "/causes/cause-123/followers/false");
+        ((ObjectNode) unfollowEvent.get("pathParameters")).put("increment", "false");
+        byte[] unfollow = runtimeMapper.writeValueAsBytes(unfollowEvent);
+        DynamoDbClient stub = new StubDynamoDbClient("missing-cause");
+        // every iteration comes from the same caller; measure the handler, not the rate limiter
+        System.setProperty("FOLLOW_RATE_LIMIT", "0");
+        IncrementCauseFollowerHandler pojo = new IncrementCauseFollowerHandler(stub);
+        IncrementCauseFollowerStreamHandler stream = new IncrementCauseFollowerStreamHandler(stub);
+
+        Invocation pojoInvocation = new Invocation() {
+            private boolean following;
+
+            @Override
+            public void run() throws Exception {
+                following = !following;
+                APIGatewayProxyRequestEvent request = runtimeMapper.readValue(following ? follow : unfollow,
+                        APIGatewayProxyRequestEvent.class);
+                APIGatewayProxyResponseEvent response = pojo.handleRequest(request, null);
+                runtimeMapper.writeValue(new ByteArrayOutputStream(256), response);
+            }
+        };
+        Invocation streamInvocation = new Invocation() {
+            private boolean following;
+
+            @Override
+            public void run() throws Exception {
+                following = !following;
+                stream.handleRequest(new ByteArrayInputStream(following ? follow : unfollow),
+                        new ByteArrayOutputStream(256), null);
+            }
+        };
+
+        // warm both paths so JIT and class loading are out of the measurement
+        measure(pojoInvocation, iterations);
+        measure(streamInvocation, iterations);
+        long pojoBytes = measure(pojoInvocation, iterations);
+        long streamBytes = measure(streamInvocation, iterations);
+        System.out.printf("event size           %d bytes%n", follow.length);
+        System.out.printf("POJO handler         %d bytes/invocation%n", pojoBytes);
+        System.out.printf("stream handler       %d bytes/invocation%n", streamBytes);
+        System.out.printf("reduction            %.1f%%%n", 100.0 * (pojoBytes - streamBytes) / pojoBytes);
+    }
+
+    private static long measure(Invocation invocation, int iterations) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            invocation.run();
+        }
+        return (THREADS.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    private interface Invocation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,60 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.Map;
+
+/**
+ * Allocation-free DynamoDB stand-in for the benchmarks: every follow
+ * transaction succeeds except for cause ids starting with the one passed in,
+ * which are cancelled by the cause condition the way a nonexistent cause is.
+ * The read-back after a follow finds a fixed follower_count. Responses and
+ * the exception are built once.
+ */
+final class StubDynamoDbClient implements DynamoDbClient {
+
+    private static final TransactWriteItemsResponse OK = TransactWriteItemsResponse.builder().build();
+    private static final GetItemResponse CAUSE = GetItemResponse.builder()
+            .item(Map.of("follower_count", AttributeValue.fromN("42")))
+            .build();
+
+    private final String missingCauseId;
+    private final TransactionCanceledException notFound = TransactionCanceledException.builder()
+            .message("Transaction cancelled, please refer cancellation reasons for specific reasons")
+            .cancellationReasons(CancellationReason.builder().code("None").build(),
+                    CancellationReason.builder().code("ConditionalCheckFailed").build())
+            .build();
+
+    StubDynamoDbClient(String missingCauseId) {
+        this.missingCauseId = missingCauseId;
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        if (request.transactItems().get(1).update().key().get("cause_id").s().startsWith(missingCauseId)) {
+            throw notFound;
+        }
+        return OK;
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        return CAUSE;
+    }
+
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+}
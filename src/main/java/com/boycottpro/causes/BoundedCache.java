@@ -0,0 +1,107 @@
+package com.boycottpro.causes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The per-container cache behind NegativeCauseCache, RecentFollowCache, the
+ * follower counts, CauseRateLimiter and the reconciler's bookkeeping: at most
+ * maxEntries entries, the least recently used evicted first, and optionally a
+ * TTL after which an entry reads as absent. Callers only choose the size and
+ * the TTL.
+ *
+ * Every method synchronizes on the cache, so a caller that needs several calls
+ * to be atomic (read a value, then replace it) can hold the cache's lock
+ * around them.
+ */
+public class BoundedCache<K, V> {
+
+    private static final long NO_TTL = Long.MAX_VALUE;
+
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final Map<K, Entry<V>> entries;
+
+    /**
+     * A cache whose entries only leave by eviction or remove.
+     */
+    public BoundedCache(int maxEntries) {
+        this(maxEntries, NO_TTL, () -> 0L);
+    }
+
+    public BoundedCache(int maxEntries, long ttlMs, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the value for key, or null if absent or expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiry <= clock.getAsLong()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores value with a fresh TTL.
+     *
+     * @return the value it replaced, or null if there was none or it had expired
+     */
+    public synchronized V put(K key, V value) {
+        V previous = get(key);
+        entries.put(key, new Entry<>(value, expiryFrom(clock.getAsLong())));
+        return previous;
+    }
+
+    /**
+     * Stores value only if key has no live entry.
+     *
+     * @return the live value that kept value out, or null if value was stored
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        V existing = get(key);
+        if (existing == null) {
+            entries.put(key, new Entry<>(value, expiryFrom(clock.getAsLong())));
+        }
+        return existing;
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Number of entries held, expired ones not yet read included.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private long expiryFrom(long now) {
+        return (ttlMs == NO_TTL) ? Long.MAX_VALUE : now + ttlMs;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiry;
+
+        private Entry(V value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
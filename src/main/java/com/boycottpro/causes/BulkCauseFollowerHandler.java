@@ -0,0 +1,221 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.boycottpro.models.ResponseMessage;
+import com.boycottpro.utilities.JwtUtility;
+import com.boycottpro.utilities.Logger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Follows or unfollows several causes in one call. The body is a JSON array of
+ * {"cause_id": "...", "increment": true|false} entries; the updates run
+ * concurrently and each cause gets its own result, so a missing cause does not
+ * fail the rest of the request. Entries go through the FollowLedger, so
+ * resubmitting a batch does not count anyone twice. Each valid entry counts
+ * as one toggle against the caller's FollowRateLimiter; entries over the
+ * limit get a 429 result and are not written.
+ */
+public class BulkCauseFollowerHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    static final int MAX_ENTRIES = 50;
+    private static final int WRITER_THREADS = 16;
+    private static final long DEFAULT_DEADLINE_MS = 10_000;
+    // leave room to serialize the response before the invocation times out
+    private static final long DEADLINE_SLACK_MS = 500;
+
+    private final CauseFollowerCounter followerCounter;
+    private final FollowLedger followLedger;
+    private final FollowWritePolicy writePolicy;
+    private final FollowRateLimiter rateLimiter;
+    private final FollowerMetrics metrics;
+    private final ExecutorService writers;
+    private final ObjectMapper objectMapper = SharedClients.objectMapper();
+
+    public BulkCauseFollowerHandler() {
+        this(SharedClients.dynamoDb());
+    }
+
+    public BulkCauseFollowerHandler(DynamoDbClient dynamoDb) {
+        this(dynamoDb, new FollowerMetrics());
+    }
+
+    BulkCauseFollowerHandler(DynamoDbClient dynamoDb, FollowerMetrics metrics) {
+        this(dynamoDb, metrics, new FollowRateLimiter(dynamoDb));
+    }
+
+    BulkCauseFollowerHandler(DynamoDbClient dynamoDb, FollowerMetrics metrics, FollowRateLimiter rateLimiter) {
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+        this.rateLimiter = rateLimiter;
+        this.followLedger = new FollowLedger(dynamoDb, followerCounter);
+        this.metrics = metrics;
+        this.writePolicy = new FollowWritePolicy(FollowWritePolicy.Settings.fromEnv(), metrics);
+        this.writers = Executors.newFixedThreadPool(WRITER_THREADS, r -> {
+            Thread thread = new Thread(r, "bulk-follow-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent event, Context context) {
+        FollowerMetrics.Timer timer = metrics.start();
+        APIGatewayProxyResponseEvent response = handle(event, context, timer);
+        metrics.finish(timer, response.getStatusCode(), followerCounter.drainConsumedCapacity());
+        return response;
+    }
+
+    private APIGatewayProxyResponseEvent handle(APIGatewayProxyRequestEvent event, Context context,
+                                                FollowerMetrics.Timer timer) {
+        String sub = null;
+        try {
+            sub = JwtUtility.getSubFromRestEvent(event);
+            timer.lap(FollowerMetrics.Phase.JWT);
+            if (sub == null) {
+                Logger.error(91, sub, "user is Unauthorized");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(401, Map.of("message", "Unauthorized"));
+            }
+            JsonNode entries = (event.getBody() == null) ? null : objectMapper.readTree(event.getBody());
+            if (entries == null || !entries.isArray() || entries.isEmpty()) {
+                Logger.error(97, sub, "bulk body not present");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(400, new ResponseMessage(400,
+                        "bulk body not present", "Expected a JSON array of {cause_id, increment}"));
+            }
+            if (entries.size() > MAX_ENTRIES) {
+                Logger.error(103, sub, "too many bulk entries");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(400, new ResponseMessage(400,
+                        "too many bulk entries", "At most " + MAX_ENTRIES + " causes per request"));
+            }
+            timer.lap(FollowerMetrics.Phase.VALIDATION);
+            long deadline = System.currentTimeMillis() + ((context == null)
+                    ? DEFAULT_DEADLINE_MS : context.getRemainingTimeInMillis() - DEADLINE_SLACK_MS);
+            String caller = sub;
+            List<String> causeIds = new ArrayList<>(entries.size());
+            List<Future<BulkFollowResult>> futures = new ArrayList<>(entries.size());
+            for (JsonNode entry : entries) {
+                String causeId = entry.path("cause_id").asText(null);
+                JsonNode increment = entry.path("increment");
+                causeIds.add(causeId);
+                // checked here rather than on the writers so the first entries are the ones admitted
+                BulkFollowResult rejected = validate(causeId, increment);
+                if (rejected == null) {
+                    rejected = rateLimit(causeId, caller);
+                }
+                futures.add((rejected != null) ? CompletableFuture.completedFuture(rejected)
+                        : writers.submit(() -> apply(causeId, increment.asBoolean(), caller)));
+            }
+            List<BulkFollowResult> results = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), causeIds.get(i), deadline));
+            }
+            timer.lap(FollowerMetrics.Phase.UPDATE_ITEM);
+            return response(200, results);
+        } catch (JsonProcessingException e) {
+            Logger.error(133, sub, e.getMessage());
+            timer.lap(FollowerMetrics.Phase.VALIDATION);
+            return response(400, new ResponseMessage(400,
+                    "bulk body not valid JSON", "Expected a JSON array of {cause_id, increment}"));
+        } catch (Exception e) {
+            timer.failed();
+            Logger.error(139, sub, e.getMessage());
+            return response(500, Map.of("error", "Unexpected server error: " + e.getMessage()));
+        }
+    }
+
+    private static BulkFollowResult validate(String causeId, JsonNode increment) {
+        if (causeId == null || causeId.isEmpty()) {
+            return new BulkFollowResult(causeId, 400, "cause_id not present");
+        }
+        if (!(increment.isBoolean() || "true".equals(increment.asText()) || "false".equals(increment.asText()))) {
+            return new BulkFollowResult(causeId, 400, "increment not acceptable value");
+        }
+        return null;
+    }
+
+    private BulkFollowResult rateLimit(String causeId, String sub) {
+        long retryAfterMs = rateLimiter.retryAfterMs(sub);
+        if (retryAfterMs <= 0) {
+            return null;
+        }
+        metrics.count(FollowerMetrics.Counter.RATE_LIMITED);
+        return new BulkFollowResult(causeId, 429,
+                "too many follow requests, retry after " + FollowRateLimiter.retryAfterSeconds(retryAfterMs) + "s");
+    }
+
+    private BulkFollowResult apply(String causeId, boolean increment, String sub) {
+        try {
+            writePolicy.execute(causeId, () -> followLedger.setFollowing(causeId, sub, increment));
+            return new BulkFollowResult(causeId, 200, "cause record updated = true");
+        } catch (WriteThrottledException e) {
+            return new BulkFollowResult(causeId, 503, "throttled, retry after " + e.getRetryAfterSeconds() + "s");
+        } catch (CauseNotFoundException e) {
+            return new BulkFollowResult(causeId, 404, "cause not found");
+        } catch (Exception e) {
+            Logger.error(173, sub, e.getMessage());
+            return new BulkFollowResult(causeId, 500, "Unexpected server error: " + e.getMessage());
+        }
+    }
+
+    FollowerMetrics metrics() {
+        return metrics;
+    }
+
+    private static BulkFollowResult await(Future<BulkFollowResult> future, String causeId, long deadline)
+            throws InterruptedException {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return new BulkFollowResult(causeId, 504, "update timed out");
+        } catch (ExecutionException e) {
+            return new BulkFollowResult(causeId, 500, "Unexpected server error: " + e.getCause().getMessage());
+        }
+    }
+
+    private APIGatewayProxyResponseEvent response(int status, Object body) {
+        String responseBody = null;
+        try {
+            responseBody = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(status)
+                .withHeaders(FollowRequestTemplate.JSON_HEADERS)
+                .withBody(responseBody);
+    }
+
+    /**
+     * Outcome for one cause in a bulk request.
+     */
+    public static class BulkFollowResult {
+        public final String cause_id;
+        public final int status;
+        public final String message;
+
+        public BulkFollowResult(String causeId, int status, String message) {
+            this.cause_id = causeId;
+            this.status = status;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.boycottpro.utilities.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQS entry point for follow/unfollow events. Each message body looks like
+ * {"cause_id": "...", "increment": true, "sub": "..."}. Each event first moves
+ * its (sub, cause_id) edge through the FollowLedger, so a redelivered or
+ * repeated event changes nothing, just as on the API path. Only the events
+ * that changed an edge count, and those are reduced to one net delta per
+ * cause so a burst of toggles on a hot cause costs a single UpdateItem
+ * instead of one counter write per event.
+ *
+ * If the delta is rejected without being applied (missing cause, throttling)
+ * the edges are put back; throttled events are then retried by SQS. When the
+ * outcome of the write is unknown the edges stay, and the reconciler corrects
+ * the count from them.
+ */
+public class CauseFollowerBatchHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private final CauseFollowerCounter followerCounter;
+    private final FollowLedger followLedger;
+    private final ObjectMapper objectMapper = SharedClients.objectMapper();
+
+    public CauseFollowerBatchHandler() {
+        this(SharedClients.dynamoDb());
+    }
+
+    public CauseFollowerBatchHandler(DynamoDbClient dynamoDb) {
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+        this.followLedger = new FollowLedger(dynamoDb, followerCounter);
+    }
+
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        Map<String, NetDelta> deltas = new LinkedHashMap<>();
+        List<SQSEvent.SQSMessage> records = (event == null || event.getRecords() == null)
+                ? List.of() : event.getRecords();
+        for (SQSEvent.SQSMessage message : records) {
+            String causeId;
+            String sub;
+            boolean increment;
+            try {
+                JsonNode body = objectMapper.readTree(message.getBody());
+                causeId = body.path("cause_id").asText(null);
+                sub = body.path("sub").asText(null);
+                JsonNode incrementNode = body.path("increment");
+                if (causeId == null || causeId.isEmpty() || sub == null || sub.isEmpty()
+                        || !isBoolean(incrementNode)) {
+                    // malformed events will never succeed, so they are dropped rather than retried
+                    Logger.error(66, null, "dropping malformed follow event " + message.getMessageId());
+                    continue;
+                }
+                increment = incrementNode.asBoolean();
+            } catch (Exception e) {
+                Logger.error(71, null, "dropping unreadable follow event " + message.getMessageId());
+                continue;
+            }
+            FollowLedger.Outcome outcome;
+            try {
+                outcome = followLedger.setEdge(causeId, sub, increment);
+            } catch (Exception e) {
+                Logger.error(78, sub, e.getMessage());
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                continue;
+            }
+            if (outcome == FollowLedger.Outcome.APPLIED) {
+                NetDelta net = deltas.computeIfAbsent(causeId, id -> new NetDelta(sub));
+                net.delta += increment ? 1 : -1;
+                net.applied.add(new AppliedEdge(message.getMessageId(), sub, increment));
+            }
+        }
+        for (Map.Entry<String, NetDelta> entry : deltas.entrySet()) {
+            NetDelta net = entry.getValue();
+            if (net.delta == 0) {
+                continue;
+            }
+            try {
+                followerCounter.applyDelta(entry.getKey(), net.shardKey, net.delta);
+            } catch (ConditionalCheckFailedException e) {
+                Logger.error(96, null, "Cause not found: " + entry.getKey());
+                revertEdges(entry.getKey(), net);
+            } catch (DynamoDbException e) {
+                Logger.error(99, null, e.getMessage());
+                if (FollowWritePolicy.isThrottle(e)) {
+                    revertEdges(entry.getKey(), net);
+                    for (AppliedEdge edge : net.applied) {
+                        failures.add(new SQSBatchResponse.BatchItemFailure(edge.messageId));
+                    }
+                }
+            } catch (Exception e) {
+                // the delta may or may not have landed; the edges stay and the reconciler settles the count
+                Logger.error(108, null, e.getMessage());
+            }
+        }
+        return new SQSBatchResponse(failures);
+    }
+
+    // newest first, so a sub that toggled more than once ends up where it started
+    private void revertEdges(String causeId, NetDelta net) {
+        for (int i = net.applied.size() - 1; i >= 0; i--) {
+            AppliedEdge edge = net.applied.get(i);
+            try {
+                followLedger.revertEdge(causeId, edge.sub, edge.following);
+            } catch (RuntimeException e) {
+                // the reconciler corrects the count drift this leaves behind
+                Logger.error(122, edge.sub, "could not revert follow edge: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isBoolean(JsonNode node) {
+        return node.isBoolean() || "true".equals(node.asText()) || "false".equals(node.asText());
+    }
+
+    private static final class NetDelta {
+        private final String shardKey;
+        private final List<AppliedEdge> applied = new ArrayList<>();
+        private int delta;
+
+        private NetDelta(String shardKey) {
+            this.shardKey = shardKey;
+        }
+    }
+
+    private static final class AppliedEdge {
+        private final String messageId;
+        private final String sub;
+        private final boolean following;
+
+        private AppliedEdge(String messageId, String sub, boolean following) {
+            this.messageId = messageId;
+            this.sub = sub;
+            this.following = following;
+        }
+    }
+}
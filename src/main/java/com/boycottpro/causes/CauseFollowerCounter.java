@@ -0,0 +1,406 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Applies follower_count deltas for a cause. A cause starts out with a single
+ * counter on its causes item; once follower_shard_count is set on that item,
+ * deltas are spread over shard items (cause_id#0..N-1) in the shard table and
+ * readers add the shards on top of the base follower_count. The base value is
+ * never moved, so switching a cause to sharded mode loses no counts.
+ *
+ * The same write also keeps follower velocity for trending: the delta is added
+ * to an hourly (velocity_h<epoch hour>) and a daily (velocity_d<epoch day>)
+ * bucket on whichever item takes the count, and the buckets of the previous
+ * ring that have just aged out are removed in the same expression, so buckets
+ * roll over without a read. Readers only sum the buckets inside the window.
+ * Corrections that are not follows (applyCorrection) leave the buckets alone.
+ */
+public class CauseFollowerCounter {
+
+    static final String CAUSES_TABLE = "causes";
+    static final String SHARD_TABLE = "cause_follower_shards";
+    static final String SHARD_COUNT_ATTR = "follower_shard_count";
+    static final int MAX_SHARDS = 100;
+    // follows made before the follow ledger existed that have no edge; see LegacyFollowerBackfill
+    static final String LEGACY_FOLLOWERS_ATTR = "legacy_followers";
+    static final String VELOCITY_HOUR_PREFIX = "velocity_h";
+    static final String VELOCITY_DAY_PREFIX = "velocity_d";
+    static final int DEFAULT_VELOCITY_HOURS = 24;
+    static final int DEFAULT_VELOCITY_DAYS = 7;
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 86_400_000L;
+    private static final String COUNT_ONLY_EXPRESSION
+            = "SET follower_count = if_not_exists(follower_count, :zero) + :delta";
+
+    private final DynamoDbClient dynamoDb;
+    // causes this container has already seen in sharded mode, with their shard count
+    private final Map<String, Integer> shardedCauses = new ConcurrentHashMap<>();
+    private final DoubleAdder consumedCapacity = new DoubleAdder();
+    private final int velocityHours;
+    private final int velocityDays;
+    private final LongSupplier clock;
+    // the update expression only changes once an hour
+    private volatile DeltaExpression deltaExpression;
+
+    public CauseFollowerCounter(DynamoDbClient dynamoDb) {
+        this(dynamoDb,
+                Integer.parseInt(envOrDefault("FOLLOW_VELOCITY_HOURS", Integer.toString(DEFAULT_VELOCITY_HOURS))),
+                Integer.parseInt(envOrDefault("FOLLOW_VELOCITY_DAYS", Integer.toString(DEFAULT_VELOCITY_DAYS))),
+                System::currentTimeMillis);
+    }
+
+    CauseFollowerCounter(DynamoDbClient dynamoDb, int velocityHours, int velocityDays, LongSupplier clock) {
+        this.dynamoDb = dynamoDb;
+        this.velocityHours = Math.max(0, velocityHours);
+        this.velocityDays = Math.max(0, velocityDays);
+        this.clock = clock;
+    }
+
+    /**
+     * Adds delta to the cause's follower count. shardKey (normally the caller's
+     * sub) picks the shard when the cause is sharded.
+     *
+     * @return the new follower_count, or null for a sharded cause where the
+     *         total is not known without reading every shard
+     * @throws ConditionalCheckFailedException if the cause does not exist
+     */
+    public Long applyDelta(String causeId, String shardKey, int delta) {
+        return apply(causeId, shardKey, delta, deltaExpression());
+    }
+
+    /**
+     * As applyDelta, but only moves follower_count: the delta is a correction,
+     * not follows, so it must not show up in the velocity buckets.
+     */
+    public Long applyCorrection(String causeId, String shardKey, int delta) {
+        return apply(causeId, shardKey, delta, COUNT_ONLY_EXPRESSION);
+    }
+
+    private Long apply(String causeId, String shardKey, int delta, String expression) {
+        Integer shards = shardedCauses.get(causeId);
+        if (shards != null) {
+            addToShard(causeId, shardKey, shards, delta, expression);
+            return null;
+        }
+        try {
+            UpdateItemResponse response = dynamoDb.updateItem(causeUpdateRequest(causeId, delta, expression));
+            recordCapacity(response);
+            AttributeValue count = (response == null || !response.hasAttributes())
+                    ? null : response.attributes().get("follower_count");
+            return (count == null || count.n() == null) ? null : Long.valueOf(count.n());
+        } catch (ConditionalCheckFailedException e) {
+            // the old item tells us whether the cause is missing or was switched to sharded mode
+            int discovered = discoverSharding(causeId, e.item());
+            if (discovered == 0) {
+                throw e;
+            }
+            addToShard(causeId, shardKey, discovered, delta, expression);
+            return null;
+        }
+    }
+
+    /**
+     * Switches a cause to sharded mode, or raises its shard count. The count can
+     * only grow so that readers never skip a shard that still holds deltas.
+     */
+    public void enableSharding(String causeId, int shardCount) {
+        if (shardCount < 2 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shardCount must be between 2 and " + MAX_SHARDS);
+        }
+        dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .updateExpression("SET " + SHARD_COUNT_ATTR + " = :n")
+                .conditionExpression("attribute_exists(cause_id) AND (attribute_not_exists("
+                        + SHARD_COUNT_ATTR + ") OR " + SHARD_COUNT_ATTR + " < :n)")
+                .expressionAttributeValues(Map.of(":n", AttributeValue.fromN(Integer.toString(shardCount))))
+                .build());
+        shardedCauses.put(causeId, shardCount);
+    }
+
+    /**
+     * Reads the effective follower count: the base follower_count plus every shard.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    public long readFollowerCount(String causeId) {
+        return sumFollowerCount(counterItems(causeId, "follower_count", false));
+    }
+
+    /**
+     * As readFollowerCount, but with strongly consistent reads, so the result
+     * includes a write this container just made.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    public long readFollowerCountAfterWrite(String causeId) {
+        return sumFollowerCount(counterItems(causeId, "follower_count", true));
+    }
+
+    /**
+     * Net follows over the last hours hours, the current hour included, summed
+     * over the cause item and its shards.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    public long readHourlyVelocity(String causeId, int hours) {
+        return readVelocity(causeId, VELOCITY_HOUR_PREFIX, clock.getAsLong() / HOUR_MS, Math.min(hours, velocityHours));
+    }
+
+    /**
+     * Net follows over the last days days, today included.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    public long readDailyVelocity(String causeId, int days) {
+        return readVelocity(causeId, VELOCITY_DAY_PREFIX, clock.getAsLong() / DAY_MS, Math.min(days, velocityDays));
+    }
+
+    /**
+     * Builds the conditional update applied to an unsharded cause item. It
+     * returns the new follower_count so callers never need a follow-up read.
+     */
+    UpdateItemRequest causeUpdateRequest(String causeId, int delta) {
+        return causeUpdateRequest(causeId, delta, deltaExpression());
+    }
+
+    private UpdateItemRequest causeUpdateRequest(String causeId, int delta, String expression) {
+        return UpdateItemRequest.builder()
+                .tableName(CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .updateExpression(expression)
+                .conditionExpression(FollowRequestTemplate.CAUSE_CONDITION)
+                .expressionAttributeValues(FollowRequestTemplate.deltaValues(delta))
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Builds the counter half of a follow transaction: the conditional cause
+     * update for an unsharded cause, or an unconditional shard update once this
+     * container knows the cause is sharded. When the cause condition cancels
+     * the transaction, pass the cancellation item to discoverSharding.
+     */
+    Update transactionalDelta(String causeId, String shardKey, int delta) {
+        Integer shards = shardedCauses.get(causeId);
+        if (shards != null) {
+            return Update.builder()
+                    .tableName(SHARD_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(shardId(causeId, shardFor(shardKey, shards)))))
+                    .updateExpression(deltaExpression())
+                    .expressionAttributeValues(FollowRequestTemplate.deltaValues(delta))
+                    .build();
+        }
+        return Update.builder()
+                .tableName(CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .updateExpression(deltaExpression())
+                .conditionExpression(FollowRequestTemplate.CAUSE_CONDITION)
+                .expressionAttributeValues(FollowRequestTemplate.deltaValues(delta))
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * Builds the counter half of an unfollow of a pre-ledger follow: takes one
+     * from follower_count and from legacy_followers on the cause item, only
+     * while legacy_followers is positive. Always the cause item, also for a
+     * sharded cause, since readers add the base follower_count to the shards.
+     */
+    Update legacyUnfollow(String causeId) {
+        return Update.builder()
+                .tableName(CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .updateExpression("SET " + LEGACY_FOLLOWERS_ATTR + " = " + LEGACY_FOLLOWERS_ATTR + " + :delta, "
+                        + deltaExpression().substring("SET ".length()))
+                .conditionExpression(LEGACY_FOLLOWERS_ATTR + " > :zero")
+                .expressionAttributeValues(FollowRequestTemplate.deltaValues(-1))
+                .build();
+    }
+
+    /**
+     * Inspects the old cause item from a failed cause condition. Returns the
+     * shard count and remembers it when the cause was switched to sharded
+     * mode, or 0 when the cause does not exist.
+     */
+    int discoverSharding(String causeId, Map<String, AttributeValue> oldItem) {
+        int discovered = shardCountOf(oldItem);
+        if (discovered > 0) {
+            shardedCauses.put(causeId, discovered);
+        }
+        return discovered;
+    }
+
+    void recordCapacity(List<ConsumedCapacity> consumed) {
+        if (consumed == null) {
+            return;
+        }
+        for (ConsumedCapacity capacity : consumed) {
+            if (capacity.capacityUnits() != null) {
+                consumedCapacity.add(capacity.capacityUnits());
+            }
+        }
+    }
+
+    /**
+     * Returns the write capacity consumed since the last call and resets it.
+     */
+    public double drainConsumedCapacity() {
+        return consumedCapacity.sumThenReset();
+    }
+
+    static String shardId(String causeId, int shard) {
+        return causeId + "#" + shard;
+    }
+
+    static int shardFor(String shardKey, int shardCount) {
+        return shardKey == null ? 0 : Math.floorMod(shardKey.hashCode(), shardCount);
+    }
+
+    private void addToShard(String causeId, String shardKey, int shards, int delta, String expression) {
+        recordCapacity(dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(SHARD_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(shardId(causeId, shardFor(shardKey, shards)))))
+                .updateExpression(expression)
+                .expressionAttributeValues(FollowRequestTemplate.deltaValues(delta))
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build()));
+    }
+
+    /**
+     * The follower_count delta plus the velocity buckets for the current hour
+     * and day. The names of the ring that aged out are removed in the same
+     * update, so a cause that is written at least once per ring keeps at most
+     * one ring of each.
+     */
+    String deltaExpression() {
+        long hour = clock.getAsLong() / HOUR_MS;
+        DeltaExpression cached = deltaExpression;
+        if (cached != null && cached.hour == hour) {
+            return cached.text;
+        }
+        StringBuilder add = new StringBuilder();
+        StringBuilder remove = new StringBuilder();
+        velocityClauses(add, remove, VELOCITY_HOUR_PREFIX, hour, velocityHours);
+        velocityClauses(add, remove, VELOCITY_DAY_PREFIX, hour * HOUR_MS / DAY_MS, velocityDays);
+        StringBuilder text = new StringBuilder(COUNT_ONLY_EXPRESSION);
+        if (add.length() > 0) {
+            text.append(" ADD ").append(add).append(" REMOVE ").append(remove);
+        }
+        deltaExpression = new DeltaExpression(hour, text.toString());
+        return deltaExpression.text;
+    }
+
+    private static void velocityClauses(StringBuilder add, StringBuilder remove, String prefix,
+                                        long current, int ring) {
+        if (ring == 0) {
+            return;
+        }
+        separate(add).append(prefix).append(current).append(" :delta");
+        for (long bucket = current - 2L * ring + 1; bucket <= current - ring; bucket++) {
+            separate(remove).append(prefix).append(bucket);
+        }
+    }
+
+    private static StringBuilder separate(StringBuilder clause) {
+        return clause.length() == 0 ? clause : clause.append(", ");
+    }
+
+    private long readVelocity(String causeId, String prefix, long current, int periods) {
+        long total = 0;
+        for (Map<String, AttributeValue> item : counterItems(causeId, null, false)) {
+            for (long bucket = current - periods + 1; bucket <= current; bucket++) {
+                total += numberOf(item.get(prefix + bucket));
+            }
+        }
+        return total;
+    }
+
+    // the cause item followed by its shard items, if any
+    private List<Map<String, AttributeValue>> counterItems(String causeId, String projection, boolean consistent) {
+        GetItemResponse cause = dynamoDb.getItem(GetItemRequest.builder()
+                .tableName(CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .projectionExpression(projection == null ? null : projection + ", " + SHARD_COUNT_ATTR)
+                .consistentRead(consistent)
+                .build());
+        if (!cause.hasItem()) {
+            throw new CauseNotFoundException(causeId);
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.add(cause.item());
+        int shards = shardCountOf(cause.item());
+        if (shards == 0) {
+            return items;
+        }
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            keys.add(Map.of("cause_id", AttributeValue.fromS(shardId(causeId, i))));
+        }
+        Map<String, KeysAndAttributes> pending = Map.of(SHARD_TABLE, KeysAndAttributes.builder()
+                .keys(keys)
+                .projectionExpression(projection)
+                .consistentRead(consistent)
+                .build());
+        while (!pending.isEmpty()) {
+            BatchGetItemResponse batch = dynamoDb.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(pending)
+                    .build());
+            items.addAll(batch.responses().getOrDefault(SHARD_TABLE, List.of()));
+            pending = batch.hasUnprocessedKeys() ? batch.unprocessedKeys() : Map.of();
+        }
+        return items;
+    }
+
+    private static long sumFollowerCount(List<Map<String, AttributeValue>> items) {
+        long total = 0;
+        for (Map<String, AttributeValue> item : items) {
+            total += numberOf(item.get("follower_count"));
+        }
+        return total;
+    }
+
+    private void recordCapacity(UpdateItemResponse response) {
+        if (response != null && response.consumedCapacity() != null
+                && response.consumedCapacity().capacityUnits() != null) {
+            consumedCapacity.add(response.consumedCapacity().capacityUnits());
+        }
+    }
+
+    private static int shardCountOf(Map<String, AttributeValue> item) {
+        if (item == null || !item.containsKey(SHARD_COUNT_ATTR)) {
+            return 0;
+        }
+        return (int) numberOf(item.get(SHARD_COUNT_ATTR));
+    }
+
+    private static long numberOf(AttributeValue value) {
+        return (value == null || value.n() == null) ? 0 : Long.parseLong(value.n());
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return (value == null || value.isEmpty()) ? fallback : value;
+    }
+
+    private static final class DeltaExpression {
+        private final long hour;
+        private final String text;
+
+        private DeltaExpression(long hour, String text) {
+            this.hour = hour;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.boycottpro.causes;
+
+/**
+ * Thrown when a follower update targets a cause id that does not exist.
+ */
+public class CauseNotFoundException extends RuntimeException {
+
+    private final String causeId;
+
+    public CauseNotFoundException(String causeId) {
+        super("Cause not found: " + causeId);
+        this.causeId = causeId;
+    }
+
+    public String getCauseId() {
+        return causeId;
+    }
+}
@@ -0,0 +1,117 @@
+package com.boycottpro.causes;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side token buckets for causes DynamoDB is throttling. A cause has no
+ * bucket, and no limit, until one of its writes is throttled. From then on its
+ * writes draw from a bucket whose rate is halved on every further throttle and
+ * raised by a fixed step on every success; once the rate climbs back above
+ * the ceiling the bucket is dropped. Callers either wait for the next token
+ * (defer) or give up and shed the write when the wait would be too long.
+ */
+public class CauseRateLimiter {
+
+    static final int DEFAULT_MAX_CAUSES = 10_000;
+
+    private final double initialRate;
+    private final double minRate;
+    private final double ceilingRate;
+    private final double increaseStep;
+    private final LongSupplier clock;
+    private final BoundedCache<String, Bucket> buckets;
+
+    public CauseRateLimiter(double initialRate) {
+        this(initialRate, DEFAULT_MAX_CAUSES, System::currentTimeMillis);
+    }
+
+    CauseRateLimiter(double initialRate, int maxCauses, LongSupplier clock) {
+        this.initialRate = initialRate;
+        this.minRate = Math.max(1, initialRate / 32);
+        this.ceilingRate = initialRate * 4;
+        this.increaseStep = Math.max(1, initialRate / 20);
+        this.clock = clock;
+        this.buckets = new BoundedCache<>(maxCauses);
+    }
+
+    /**
+     * Returns how many milliseconds the caller must wait before writing to
+     * causeId. When that is at most maxWaitMs a token is reserved and the caller
+     * must write after waiting; otherwise nothing is reserved and the caller
+     * should shed the write.
+     */
+    public long reserve(String causeId, long maxWaitMs) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(causeId);
+            if (bucket == null) {
+                return 0;
+            }
+            long now = clock.getAsLong();
+            bucket.refill(now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            long wait = (long) Math.ceil((1 - bucket.tokens) / bucket.rate * 1000);
+            if (wait <= maxWaitMs) {
+                bucket.tokens -= 1;
+            }
+            return wait;
+        }
+    }
+
+    public void onThrottled(String causeId) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(causeId);
+            if (bucket == null) {
+                buckets.put(causeId, new Bucket(initialRate, clock.getAsLong()));
+            } else {
+                bucket.refill(clock.getAsLong());
+                bucket.rate = Math.max(minRate, bucket.rate / 2);
+                bucket.tokens = Math.min(bucket.tokens, bucket.rate);
+            }
+        }
+    }
+
+    public void onSuccess(String causeId) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(causeId);
+            if (bucket == null) {
+                return;
+            }
+            bucket.rate += increaseStep;
+            if (bucket.rate >= ceilingRate) {
+                buckets.remove(causeId);
+            }
+        }
+    }
+
+    /**
+     * Returns the current rate limit for causeId in writes per second, or 0 if
+     * the cause is not limited.
+     */
+    public double rateOf(String causeId) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(causeId);
+            return (bucket == null) ? 0 : bucket.rate;
+        }
+    }
+
+    private static final class Bucket {
+        private double rate;
+        private double tokens;
+        private long lastRefill;
+
+        private Bucket(double rate, long now) {
+            this.rate = rate;
+            this.tokens = 0;
+            this.lastRefill = now;
+        }
+
+        // one second's worth of tokens at most, so a bucket cannot bank a burst
+        private void refill(long now) {
+            tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1000);
+            lastRefill = now;
+        }
+    }
+}
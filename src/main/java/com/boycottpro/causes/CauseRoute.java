@@ -0,0 +1,32 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.List;
+
+/**
+ * Plug-in point for handlers hosted by CauseRouter. Implementations are found
+ * with ServiceLoader: list the class in
+ * META-INF/services/com.boycottpro.causes.CauseRoute of the jar that ships it
+ * and give it a public no-arg constructor.
+ */
+public interface CauseRoute {
+
+    /**
+     * The API Gateway routes this handler serves, as "METHOD resource" with the
+     * resource template exactly as configured in API Gateway, e.g.
+     * "POST /causes/{cause_id}/followers/{increment}". The method may be ANY.
+     */
+    List<String> routeKeys();
+
+    /**
+     * Builds the handler once, when the router is initialized. It should use
+     * the given client and mapper rather than building its own.
+     */
+    RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> create(DynamoDbClient dynamoDb,
+                                                                                    ObjectMapper objectMapper);
+}
@@ -0,0 +1,207 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.boycottpro.utilities.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * One Lambda entry point for every cause handler registered as a CauseRoute,
+ * so sibling handlers share one warm container (and one provisioned
+ * concurrency pool) instead of each paying its own cold start. The routes and
+ * their handlers are built once, at init, around a single DynamoDbClient and
+ * ObjectMapper.
+ *
+ * Requests are matched on the API Gateway resource template and HTTP method.
+ * Events without a resource (e.g. a test invoke) are matched on their path
+ * instead, and get their path parameters filled in from the template.
+ */
+public class CauseRouter implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    static final String ANY = "ANY";
+    static final String NOT_FOUND_BODY = FollowRequestTemplate.serialize(Map.of("message", "Not Found"));
+    static final String METHOD_NOT_ALLOWED_BODY = FollowRequestTemplate.serialize(
+            Map.of("message", "Method Not Allowed"));
+
+    private final Map<String, Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>>> routes
+            = new LinkedHashMap<>();
+    private final List<RouteTemplate> templates = new ArrayList<>();
+
+    public CauseRouter() {
+        this(SharedClients.dynamoDb(), SharedClients.objectMapper(), ServiceLoader.load(CauseRoute.class));
+        // handlers built through CauseRoute skip their own SnapStart registration
+        for (Resource resource : resources()) {
+            Core.getGlobalContext().register(resource);
+        }
+    }
+
+    CauseRouter(DynamoDbClient dynamoDb, ObjectMapper objectMapper, Iterable<CauseRoute> plugins) {
+        for (CauseRoute plugin : plugins) {
+            RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler
+                    = plugin.create(dynamoDb, objectMapper);
+            for (String routeKey : plugin.routeKeys()) {
+                register(routeKey, handler);
+            }
+        }
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent event, Context context) {
+        Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> methods
+                = methodsFor(event);
+        if (methods == null) {
+            Logger.error(68, null, "no route for " + event.getHttpMethod() + " " + event.getPath());
+            return response(404, NOT_FOUND_BODY);
+        }
+        String method = (event.getHttpMethod() == null) ? "" : event.getHttpMethod().toUpperCase();
+        RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler = methods.get(method);
+        if (handler == null) {
+            handler = methods.get(ANY);
+        }
+        if (handler == null) {
+            Logger.error(77, null, "method not allowed: " + event.getHttpMethod() + " " + event.getPath());
+            return response(405, METHOD_NOT_ALLOWED_BODY)
+                    .withHeaders(Map.of("Content-Type", "application/json",
+                            "Allow", String.join(", ", methods.keySet())));
+        }
+        return handler.handleRequest(event, context);
+    }
+
+    /**
+     * The registered route keys, in registration order.
+     */
+    List<String> routeKeys() {
+        List<String> keys = new ArrayList<>();
+        routes.forEach((resource, methods) -> methods.keySet().forEach(method -> keys.add(method + " " + resource)));
+        return keys;
+    }
+
+    /**
+     * The handlers that take part in SnapStart, each once even if it serves
+     * several routes.
+     */
+    List<Resource> resources() {
+        Set<Resource> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Resource> resources = new ArrayList<>();
+        for (Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> methods
+                : routes.values()) {
+            for (RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler : methods.values()) {
+                if (handler instanceof Resource && seen.add((Resource) handler)) {
+                    resources.add((Resource) handler);
+                }
+            }
+        }
+        return resources;
+    }
+
+    private void register(String routeKey,
+                          RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler) {
+        int space = routeKey.indexOf(' ');
+        if (space <= 0 || !routeKey.startsWith("/", space + 1)) {
+            throw new IllegalArgumentException("route key must look like \"METHOD /resource\": " + routeKey);
+        }
+        String method = routeKey.substring(0, space).toUpperCase();
+        String resource = routeKey.substring(space + 1).trim();
+        Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> methods
+                = routes.get(resource);
+        if (methods == null) {
+            methods = new LinkedHashMap<>();
+            routes.put(resource, methods);
+            templates.add(new RouteTemplate(resource));
+        }
+        if (methods.putIfAbsent(method, handler) != null) {
+            throw new IllegalStateException("route registered twice: " + method + " " + resource);
+        }
+    }
+
+    private Map<String, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> methodsFor(
+            APIGatewayProxyRequestEvent event) {
+        String resource = event.getResource();
+        if (resource == null && event.getRequestContext() != null) {
+            resource = event.getRequestContext().getResourcePath();
+        }
+        if (resource != null) {
+            return routes.get(resource);
+        }
+        if (event.getPath() == null) {
+            return null;
+        }
+        String[] segments = RouteTemplate.split(event.getPath());
+        for (RouteTemplate template : templates) {
+            Map<String, String> pathParameters = template.match(segments);
+            if (pathParameters != null) {
+                if (event.getPathParameters() == null) {
+                    event.setPathParameters(pathParameters);
+                }
+                return routes.get(template.resource);
+            }
+        }
+        return null;
+    }
+
+    private static APIGatewayProxyResponseEvent response(int status, String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(status)
+                .withHeaders(FollowRequestTemplate.JSON_HEADERS)
+                .withBody(body);
+    }
+
+    /**
+     * A resource template split into segments; {name} matches one segment and
+     * {name+} the rest of the path.
+     */
+    static final class RouteTemplate {
+        final String resource;
+        private final String[] segments;
+
+        RouteTemplate(String resource) {
+            this.resource = resource;
+            this.segments = split(resource);
+        }
+
+        Map<String, String> match(String[] path) {
+            Map<String, String> parameters = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                boolean variable = segment.startsWith("{") && segment.endsWith("}");
+                if (variable && segment.endsWith("+}")) {
+                    if (i >= path.length) {
+                        return null;
+                    }
+                    parameters.put(segment.substring(1, segment.length() - 2),
+                            String.join("/", List.of(path).subList(i, path.length)));
+                    return parameters;
+                }
+                if (i >= path.length) {
+                    return null;
+                }
+                if (variable) {
+                    parameters.put(segment.substring(1, segment.length() - 1), path[i]);
+                } else if (!segment.equals(path[i])) {
+                    return null;
+                }
+            }
+            return (segments.length == path.length) ? parameters : null;
+        }
+
+        static String[] split(String path) {
+            String trimmed = path.replaceAll("^/+|/+$", "");
+            return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+        }
+    }
+}
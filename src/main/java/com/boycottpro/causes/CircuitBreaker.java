@@ -0,0 +1,91 @@
+package com.boycottpro.causes;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Per-container breaker over throttled follower writes. After threshold
+ * consecutive writes give up on throttling it opens and sheds every write for
+ * openMs; after that a single probe is let through, and its outcome closes the
+ * breaker again or reopens it. Writes that reach DynamoDB and are not throttled
+ * count as successes, whatever else happens to them.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long openMs;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+
+    public CircuitBreaker(int threshold, long openMs) {
+        this(threshold, openMs, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int threshold, long openMs, LongSupplier clock) {
+        this.threshold = Math.max(1, threshold);
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns 0 if a write may go ahead, otherwise how long the caller should
+     * wait before trying again.
+     */
+    public synchronized long retryAfterMs() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        if (state == State.OPEN) {
+            if (now < openUntil) {
+                return openUntil - now;
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (!probing) {
+            probing = true;
+            return 0;
+        }
+        // a probe is in flight; everyone else waits for its verdict
+        return openMs;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    public synchronized void onThrottled() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= threshold) {
+            state = State.OPEN;
+            openUntil = clock.getAsLong() + openMs;
+            probing = false;
+        }
+    }
+
+    /**
+     * Ends a write that reached no verdict, e.g. one interrupted while backing
+     * off. If it was the half-open probe, the next write becomes the probe
+     * instead of every write being shed until the process is recycled.
+     */
+    public synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,48 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.retries.DefaultRetryStrategy;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.IOException;
+
+/**
+ * Builds the DynamoDbClient used by the handlers in this function. The JDK
+ * UrlConnectionHttpClient loads far fewer classes than the Apache client and
+ * starts faster, which matters more here than connection pooling since each
+ * invocation makes one or two calls.
+ *
+ * The SDK's standard retries stay on for IO errors and 5xx responses, but not
+ * for throttles. Follower writes are retried on throttling by
+ * FollowWritePolicy, and SDK retries underneath it would multiply its
+ * attempts and stretch its backoff past what the retry budget and circuit
+ * breaker account for.
+ */
+public final class DynamoDbClients {
+
+    private DynamoDbClients() {
+    }
+
+    public static DynamoDbClient create() {
+        return DynamoDbClient.builder()
+                .httpClient(UrlConnectionHttpClient.create())
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .retryStrategy(DefaultRetryStrategy.standardStrategyBuilder()
+                                .retryOnException(DynamoDbClients::isTransient)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    static boolean isTransient(Throwable t) {
+        if (t instanceof SdkServiceException) {
+            SdkServiceException e = (SdkServiceException) t;
+            return e.statusCode() >= 500 && !e.isThrottlingException();
+        }
+        return t instanceof SdkClientException
+                && (t.getCause() instanceof IOException || ((SdkClientException) t).retryable());
+    }
+}
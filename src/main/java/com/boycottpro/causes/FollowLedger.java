@@ -0,0 +1,268 @@
+package com.boycottpro.causes;
+
+import com.boycottpro.utilities.Logger;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Makes follow/unfollow idempotent per (sub, cause_id). The follower edge in
+ * the user_follows table and the follower_count delta are written in one
+ * TransactWriteItems call: following puts the edge only if it is absent and
+ * unfollowing deletes it only if it is present, so a retried or double-tapped
+ * request cancels the transaction instead of counting twice, and an unfollow
+ * without a follow can no longer push the count below zero.
+ *
+ * A RecentFollowCache in front of the transaction answers repeats of the state
+ * this container just wrote without going to DynamoDB at all.
+ *
+ * Follows made before the ledger existed have no edge. LegacyFollowerBackfill
+ * records how many of them a cause has in legacy_followers; an unfollow that
+ * finds no edge uses up one of those instead of being a no-op, and leaves a
+ * tombstone (user_id "legacy#" + sub) so repeating it does not count again.
+ * Which user held a legacy follow is not known, so any caller who never
+ * followed can take one off the count. The fallback therefore only runs until
+ * LEGACY_UNFOLLOW_UNTIL (an ISO-8601 instant, off when unset) and logs every
+ * use.
+ */
+public class FollowLedger {
+
+    static final String LEDGER_TABLE = "user_follows";
+    static final String LEGACY_PREFIX = "legacy#";
+
+    private static final String CONDITION_FAILED = "ConditionalCheckFailed";
+    // positions of the two writes in the transaction, matching the cancellation reasons
+    private static final int EDGE = 0;
+    private static final int COUNTER = 1;
+
+    public enum Outcome {
+        APPLIED,
+        ALREADY_APPLIED,
+        // setEdge only: an unfollow of a pre-ledger follow, follower_count already adjusted
+        LEGACY_UNFOLLOWED
+    }
+
+    private final DynamoDbClient dynamoDb;
+    private final CauseFollowerCounter followerCounter;
+    private final RecentFollowCache recentFollows;
+    private final long legacyUnfollowUntilMs;
+    private final LongSupplier clock;
+
+    public FollowLedger(DynamoDbClient dynamoDb, CauseFollowerCounter followerCounter) {
+        this(dynamoDb, followerCounter, new RecentFollowCache());
+    }
+
+    FollowLedger(DynamoDbClient dynamoDb, CauseFollowerCounter followerCounter, RecentFollowCache recentFollows) {
+        this(dynamoDb, followerCounter, recentFollows, legacyUnfollowUntilFromEnv(), System::currentTimeMillis);
+    }
+
+    FollowLedger(DynamoDbClient dynamoDb, CauseFollowerCounter followerCounter, RecentFollowCache recentFollows,
+                 long legacyUnfollowUntilMs, LongSupplier clock) {
+        this.dynamoDb = dynamoDb;
+        this.followerCounter = followerCounter;
+        this.recentFollows = recentFollows;
+        this.legacyUnfollowUntilMs = legacyUnfollowUntilMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Moves the (sub, causeId) edge to the requested state, adjusting
+     * follower_count by one if and only if the state changed.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    public Outcome setFollowing(String causeId, String sub, boolean following) {
+        if (recentFollows.isAlready(sub, causeId, following)) {
+            return Outcome.ALREADY_APPLIED;
+        }
+        while (true) {
+            try {
+                TransactWriteItemsResponse response = dynamoDb.transactWriteItems(
+                        followRequest(causeId, sub, following));
+                followerCounter.recordCapacity(response == null ? null : response.consumedCapacity());
+                recentFollows.record(sub, causeId, following);
+                return Outcome.APPLIED;
+            } catch (TransactionCanceledException e) {
+                CancellationReason counter = reason(e, COUNTER);
+                if (failedCondition(counter)
+                        && followerCounter.discoverSharding(causeId, counter.item()) == 0) {
+                    throw new CauseNotFoundException(causeId);
+                }
+                if (failedCondition(reason(e, EDGE))) {
+                    Outcome outcome = (!following && unfollowLegacy(causeId, sub))
+                            ? Outcome.APPLIED : Outcome.ALREADY_APPLIED;
+                    recentFollows.record(sub, causeId, following);
+                    return outcome;
+                }
+                if (!failedCondition(counter)) {
+                    throw e;
+                }
+                // the cause was switched to sharded mode; retry against a shard
+            }
+        }
+    }
+
+    /**
+     * Moves only the (sub, causeId) edge, for callers that apply the
+     * follower_count delta themselves (see FollowerDeltaBuffer). Does not
+     * check that the cause exists.
+     */
+    public Outcome setEdge(String causeId, String sub, boolean following) {
+        if (recentFollows.isAlready(sub, causeId, following)) {
+            return Outcome.ALREADY_APPLIED;
+        }
+        try {
+            if (following) {
+                dynamoDb.putItem(PutItemRequest.builder()
+                        .tableName(LEDGER_TABLE)
+                        .item(edgeItem(causeId, sub))
+                        .conditionExpression(FollowRequestTemplate.EDGE_ABSENT)
+                        .build());
+            } else {
+                dynamoDb.deleteItem(DeleteItemRequest.builder()
+                        .tableName(LEDGER_TABLE)
+                        .key(edgeKey(causeId, sub))
+                        .conditionExpression(FollowRequestTemplate.EDGE_PRESENT)
+                        .build());
+            }
+        } catch (ConditionalCheckFailedException e) {
+            Outcome outcome = (!following && unfollowLegacy(causeId, sub))
+                    ? Outcome.LEGACY_UNFOLLOWED : Outcome.ALREADY_APPLIED;
+            recentFollows.record(sub, causeId, following);
+            return outcome;
+        }
+        recentFollows.record(sub, causeId, following);
+        return Outcome.APPLIED;
+    }
+
+    /**
+     * Unfollow that found no edge: counts it against the cause's
+     * legacy_followers, provided the edge is still absent, this sub has not
+     * unfollowed a legacy follow of this cause before, and any are left.
+     * Does nothing after LEGACY_UNFOLLOW_UNTIL.
+     *
+     * @return true if follower_count was lowered
+     */
+    boolean unfollowLegacy(String causeId, String sub) {
+        if (clock.getAsLong() >= legacyUnfollowUntilMs) {
+            return false;
+        }
+        try {
+            TransactWriteItemsResponse response = dynamoDb.transactWriteItems(legacyUnfollowRequest(causeId, sub));
+            followerCounter.recordCapacity(response == null ? null : response.consumedCapacity());
+            Logger.error(157, sub, "unfollowed a legacy follow of " + causeId);
+            return true;
+        } catch (TransactionCanceledException e) {
+            List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+            if (reasons.stream().anyMatch(FollowLedger::failedCondition)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    TransactWriteItemsRequest legacyUnfollowRequest(String causeId, String sub) {
+        TransactWriteItem edgeAbsent = TransactWriteItem.builder().conditionCheck(ConditionCheck.builder()
+                .tableName(LEDGER_TABLE)
+                .key(edgeKey(causeId, sub))
+                .conditionExpression(FollowRequestTemplate.EDGE_ABSENT)
+                .build()).build();
+        TransactWriteItem tombstone = TransactWriteItem.builder().put(Put.builder()
+                .tableName(LEDGER_TABLE)
+                .item(Map.of(
+                        "user_id", AttributeValue.fromS(LEGACY_PREFIX + sub),
+                        "cause_id", AttributeValue.fromS(causeId),
+                        "unfollowed_at", AttributeValue.fromN(Long.toString(System.currentTimeMillis() / 1000))))
+                .conditionExpression(FollowRequestTemplate.EDGE_ABSENT)
+                .build()).build();
+        TransactWriteItem counter = TransactWriteItem.builder()
+                .update(followerCounter.legacyUnfollow(causeId))
+                .build();
+        return TransactWriteItemsRequest.builder()
+                .transactItems(edgeAbsent, tombstone, counter)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build();
+    }
+
+    /**
+     * Undoes an edge change made by setEdge whose counter delta could not be
+     * applied, so that a retry of the request applies both again.
+     */
+    public void revertEdge(String causeId, String sub, boolean following) {
+        if (following) {
+            dynamoDb.deleteItem(DeleteItemRequest.builder()
+                    .tableName(LEDGER_TABLE)
+                    .key(edgeKey(causeId, sub))
+                    .build());
+        } else {
+            dynamoDb.putItem(PutItemRequest.builder()
+                    .tableName(LEDGER_TABLE)
+                    .item(edgeItem(causeId, sub))
+                    .build());
+        }
+        recentFollows.record(sub, causeId, !following);
+    }
+
+    /**
+     * Builds the edge write and counter delta as a single transaction.
+     */
+    TransactWriteItemsRequest followRequest(String causeId, String sub, boolean following) {
+        TransactWriteItem edge;
+        if (following) {
+            edge = TransactWriteItem.builder().put(Put.builder()
+                    .tableName(LEDGER_TABLE)
+                    .item(edgeItem(causeId, sub))
+                    .conditionExpression(FollowRequestTemplate.EDGE_ABSENT)
+                    .build()).build();
+        } else {
+            edge = TransactWriteItem.builder().delete(Delete.builder()
+                    .tableName(LEDGER_TABLE)
+                    .key(edgeKey(causeId, sub))
+                    .conditionExpression(FollowRequestTemplate.EDGE_PRESENT)
+                    .build()).build();
+        }
+        TransactWriteItem counter = TransactWriteItem.builder()
+                .update(followerCounter.transactionalDelta(causeId, sub, following ? 1 : -1))
+                .build();
+        return TransactWriteItemsRequest.builder()
+                .transactItems(edge, counter)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> edgeKey(String causeId, String sub) {
+        return Map.of(
+                "user_id", AttributeValue.fromS(sub),
+                "cause_id", AttributeValue.fromS(causeId));
+    }
+
+    private static Map<String, AttributeValue> edgeItem(String causeId, String sub) {
+        return Map.of(
+                "user_id", AttributeValue.fromS(sub),
+                "cause_id", AttributeValue.fromS(causeId),
+                "followed_at", AttributeValue.fromN(Long.toString(System.currentTimeMillis() / 1000)));
+    }
+
+    RecentFollowCache recentFollows() {
+        return recentFollows;
+    }
+
+    private static CancellationReason reason(TransactionCanceledException e, int index) {
+        List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+        return index < reasons.size() ? reasons.get(index) : null;
+    }
+
+    private static boolean failedCondition(CancellationReason reason) {
+        return reason != null && CONDITION_FAILED.equals(reason.code());
+    }
+
+    // LEGACY_UNFOLLOW_UNTIL, e.g. 2026-12-31T00:00:00Z; unset turns the fallback off
+    private static long legacyUnfollowUntilFromEnv() {
+        String value = System.getenv("LEGACY_UNFOLLOW_UNTIL");
+        return (value == null || value.isBlank()) ? 0 : Instant.parse(value).toEpochMilli();
+    }
+}
@@ -0,0 +1,174 @@
+package com.boycottpro.causes;
+
+import com.boycottpro.utilities.Logger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-sub limit on follow/unfollow toggles, so one client flipping a follow in
+ * a loop cannot burn the capacity of a hot cause.
+ *
+ * The in-container check is a sliding window counter: the previous window's
+ * count, weighted by how much of it still overlaps the sliding window, plus
+ * the current window's count. Each sub's state is packed into one AtomicLong
+ * (window index, current count, previous count) and updated with CAS, so the
+ * fast path takes no locks.
+ *
+ * When FOLLOW_RATE_LIMIT_TABLE is set, toggles that pass locally are also
+ * counted in a per-(sub, window) item in that table with a conditional ADD, so
+ * the limit holds across concurrent Lambda instances. Those items carry an
+ * expires_at TTL attribute. That check is fixed-window and fails open if
+ * DynamoDB cannot be reached.
+ *
+ * Settings come from the environment, or from system properties of the same
+ * name for local runs; FOLLOW_RATE_LIMIT=0 turns the limiter off.
+ */
+public class FollowRateLimiter {
+
+    static final int DEFAULT_LIMIT = 30;
+    static final long DEFAULT_WINDOW_MS = 60_000;
+    static final int DEFAULT_MAX_SUBS = 100_000;
+    private static final long COUNT_MASK = 0xFFFF;
+    private static final long WINDOW_MASK = 0xFFFF_FFFFL;
+
+    private final int limit;
+    private final long windowMs;
+    private final int maxSubs;
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    public FollowRateLimiter(DynamoDbClient dynamoDb) {
+        this(Integer.parseInt(envOrDefault("FOLLOW_RATE_LIMIT", Integer.toString(DEFAULT_LIMIT))),
+                Long.parseLong(envOrDefault("FOLLOW_RATE_WINDOW_MS", Long.toString(DEFAULT_WINDOW_MS))),
+                DEFAULT_MAX_SUBS, dynamoDb, envOrDefault("FOLLOW_RATE_LIMIT_TABLE", null), System::currentTimeMillis);
+    }
+
+    FollowRateLimiter(int limit, long windowMs, int maxSubs, DynamoDbClient dynamoDb, String tableName,
+                      LongSupplier clock) {
+        this.limit = (int) Math.min(limit, COUNT_MASK);
+        this.windowMs = windowMs;
+        this.maxSubs = maxSubs;
+        this.dynamoDb = dynamoDb;
+        this.tableName = (tableName == null || tableName.isEmpty()) ? null : tableName;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts one toggle for sub. Returns 0 if it is within the limit, otherwise
+     * how long the caller should wait; nothing is counted for a rejected toggle.
+     */
+    public long retryAfterMs(String sub) {
+        if (limit <= 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        long retryAfter = acquireLocal(sub, now);
+        if (retryAfter > 0 || tableName == null) {
+            return retryAfter;
+        }
+        return acquireShared(sub, now);
+    }
+
+    private long acquireLocal(String sub, long now) {
+        long window = now / windowMs;
+        AtomicLong cell = windows.get(sub);
+        if (cell == null) {
+            sweepIfFull(window);
+            cell = windows.computeIfAbsent(sub, k -> new AtomicLong(pack(window, 0, 0)));
+        }
+        double elapsed = (double) (now % windowMs) / windowMs;
+        while (true) {
+            long state = cell.get();
+            long stored = state >>> 32;
+            long current = (state >>> 16) & COUNT_MASK;
+            long previous = state & COUNT_MASK;
+            if (stored != (window & WINDOW_MASK)) {
+                previous = (stored == ((window - 1) & WINDOW_MASK)) ? current : 0;
+                current = 0;
+            }
+            double estimate = previous * (1 - elapsed) + current;
+            if (estimate + 1 > limit) {
+                return waitMs(previous, current, elapsed, now);
+            }
+            if (cell.compareAndSet(state, pack(window, current + 1, previous))) {
+                return 0;
+            }
+        }
+    }
+
+    // time until the weighted previous window has decayed enough to admit one more toggle
+    private long waitMs(long previous, long current, double elapsed, long now) {
+        long untilNextWindow = windowMs - now % windowMs;
+        if (current + 1 > limit || previous == 0) {
+            return untilNextWindow;
+        }
+        double excess = previous * (1 - elapsed) + current + 1 - limit;
+        return Math.max(1, Math.min(untilNextWindow, (long) Math.ceil(excess / previous * windowMs)));
+    }
+
+    private long acquireShared(String sub, long now) {
+        long window = now / windowMs;
+        long windowEnd = (window + 1) * windowMs;
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of("limit_key", AttributeValue.fromS(sub + "#" + window)))
+                    .updateExpression("ADD hits :one SET expires_at = :expires")
+                    .conditionExpression("attribute_not_exists(hits) OR hits < :limit")
+                    .expressionAttributeValues(Map.of(
+                            ":one", AttributeValue.fromN("1"),
+                            ":limit", AttributeValue.fromN(Integer.toString(limit)),
+                            ":expires", AttributeValue.fromN(Long.toString((windowEnd + windowMs) / 1000))))
+                    .build());
+            return 0;
+        } catch (ConditionalCheckFailedException e) {
+            return windowEnd - now;
+        } catch (SdkException e) {
+            Logger.error(138, sub, "shared rate limit check failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // drops subs idle for a full window once the map is full, at most once per window
+    private void sweepIfFull(long window) {
+        if (windows.size() < maxSubs) {
+            return;
+        }
+        long due = nextSweep.get();
+        if (window < due || !nextSweep.compareAndSet(due, window + 1)) {
+            return;
+        }
+        windows.values().removeIf(cell -> (cell.get() >>> 32) < ((window - 1) & WINDOW_MASK));
+    }
+
+    int trackedSubs() {
+        return windows.size();
+    }
+
+    static long retryAfterSeconds(long retryAfterMs) {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+
+    private static long pack(long window, long current, long previous) {
+        return ((window & WINDOW_MASK) << 32) | (Math.min(current, COUNT_MASK) << 16) | Math.min(previous, COUNT_MASK);
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            value = System.getProperty(name);
+        }
+        return (value == null || value.isEmpty()) ? fallback : value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.boycottpro.causes;
+
+import com.boycottpro.models.ResponseMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * The parts of a follow request and its response that never change, built
+ * once per container: the number AttributeValues and value maps for a +1/-1
+ * delta, the condition expressions, the JSON headers and the serialized
+ * bodies of the fixed error responses. Only the key, the edge item and the
+ * success body are built per request.
+ */
+public final class FollowRequestTemplate {
+
+    private static final ObjectMapper MAPPER = SharedClients.objectMapper();
+    private static final JsonFactory JSON = MAPPER.getFactory();
+
+    static final AttributeValue ZERO = AttributeValue.fromN("0");
+    static final AttributeValue ONE = AttributeValue.fromN("1");
+    static final AttributeValue MINUS_ONE = AttributeValue.fromN("-1");
+    private static final Map<String, AttributeValue> FOLLOW_VALUES = Map.of(":delta", ONE, ":zero", ZERO);
+    private static final Map<String, AttributeValue> UNFOLLOW_VALUES = Map.of(":delta", MINUS_ONE, ":zero", ZERO);
+
+    static final String CAUSE_CONDITION = "attribute_exists(cause_id) AND attribute_not_exists("
+            + CauseFollowerCounter.SHARD_COUNT_ATTR + ")";
+    static final String EDGE_ABSENT = "attribute_not_exists(cause_id)";
+    static final String EDGE_PRESENT = "attribute_exists(cause_id)";
+
+    static final Map<String, String> JSON_HEADERS = Map.of("Content-Type", "application/json");
+
+    static final String UNAUTHORIZED_BODY = serialize(Map.of("message", "Unauthorized"));
+    static final String MISSING_CAUSE_BODY = serialize(new ResponseMessage(400,
+            "cause_id not present", "Missing cause_id"));
+    static final String MISSING_INCREMENT_BODY = serialize(new ResponseMessage(400,
+            "increment not present", "Missing increment"));
+    static final String BAD_INCREMENT_BODY = serialize(new ResponseMessage(400,
+            "increment not acceptable value", "Expected true/false"));
+    static final String NOT_FOUND_BODY = serialize(new ResponseMessage(404,
+            "cause not found", "Unknown cause_id"));
+
+    private FollowRequestTemplate() {
+    }
+
+    /**
+     * The :delta/:zero values for a counter update; shared for the usual +1/-1.
+     */
+    static Map<String, AttributeValue> deltaValues(int delta) {
+        if (delta == 1) {
+            return FOLLOW_VALUES;
+        }
+        if (delta == -1) {
+            return UNFOLLOW_VALUES;
+        }
+        return Map.of(":delta", AttributeValue.fromN(Integer.toString(delta)), ":zero", ZERO);
+    }
+
+    /**
+     * Success body, written with a generator instead of building a Map.
+     * message and followerCount are left out when null.
+     */
+    static String followerCountBody(String causeId, Long followerCount, String message) {
+        StringWriter body = new StringWriter(96);
+        try (JsonGenerator generator = JSON.createGenerator(body)) {
+            generator.writeStartObject();
+            if (message != null) {
+                generator.writeStringField("message", message);
+            }
+            generator.writeStringField("cause_id", causeId);
+            if (followerCount != null) {
+                generator.writeNumberField("follower_count", followerCount);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return body.toString();
+    }
+
+    /**
+     * 429 body for a caller over the follow rate limit.
+     */
+    static String rateLimitedBody(long retryAfterSeconds) {
+        return serialize(new ResponseMessage(429, "too many follow requests",
+                "Retry after " + retryAfterSeconds + "s"));
+    }
+
+    /**
+     * 503 body for a write shed or given up on by FollowWritePolicy.
+     */
+    static String throttledBody(long retryAfterSeconds) {
+        return serialize(new ResponseMessage(503, "follower updates are being throttled",
+                "Retry after " + retryAfterSeconds + "s"));
+    }
+
+    static String serialize(Object body) {
+        try {
+            return MAPPER.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionConflictException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Retry and load-shedding policy for follower writes. A throttled write, or a
+ * transaction cancelled by a conflicting one, is retried with full-jitter
+ * backoff, as long as the container-wide retry budget allows; every throttle
+ * also slows the cause down through a CauseRateLimiter, and writes that would
+ * wait too long for a token are shed. Writes that give
+ * up on throttling feed a CircuitBreaker which, once open, sheds every write.
+ * Shed writes surface as WriteThrottledException so callers can answer 503
+ * with Retry-After rather than 500.
+ *
+ * This is the only layer that retries follower writes on throttling:
+ * DynamoDbClients leaves throttles out of the SDK's retries, and the SDK
+ * would not retry a TransactWriteItems cancellation caused by throttling
+ * anyway.
+ */
+public class FollowWritePolicy {
+
+    private final Settings settings;
+    private final CauseRateLimiter causeLimiter;
+    private final CircuitBreaker breaker;
+    private final FollowerMetrics metrics;
+    private final Sleeper sleeper;
+    private final DoubleSupplier random;
+    // retry budget in tenths of a token: a retry costs 10, a success refunds 1
+    private final AtomicInteger budget;
+
+    public FollowWritePolicy(Settings settings, FollowerMetrics metrics) {
+        this(settings, metrics, System::currentTimeMillis, Thread::sleep,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    FollowWritePolicy(Settings settings, FollowerMetrics metrics, LongSupplier clock,
+                      Sleeper sleeper, DoubleSupplier random) {
+        this.settings = settings;
+        this.causeLimiter = new CauseRateLimiter(settings.throttledCauseRate, CauseRateLimiter.DEFAULT_MAX_CAUSES, clock);
+        this.breaker = new CircuitBreaker(settings.breakerThreshold, settings.breakerOpenMs, clock);
+        this.metrics = metrics;
+        this.sleeper = sleeper;
+        this.random = random;
+        this.budget = new AtomicInteger(settings.retryBudget * 10);
+    }
+
+    /**
+     * Runs write for causeId under the policy.
+     *
+     * @throws WriteThrottledException if the write was shed or ran out of retries while throttled
+     */
+    public <T> T execute(String causeId, Supplier<T> write) {
+        long wait = causeLimiter.reserve(causeId, settings.maxDeferMs);
+        if (wait > settings.maxDeferMs) {
+            metrics.count(FollowerMetrics.Counter.SHED_WRITES);
+            throw new WriteThrottledException("cause " + causeId + " is being throttled", wait);
+        }
+        pause(wait);
+        long retryAfter = breaker.retryAfterMs();
+        if (retryAfter > 0) {
+            metrics.count(FollowerMetrics.Counter.SHED_WRITES);
+            throw new WriteThrottledException("circuit breaker open", retryAfter);
+        }
+        boolean settled = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = write.get();
+                    settled = true;
+                    onSuccess(causeId);
+                    return result;
+                } catch (DynamoDbException e) {
+                    boolean throttle = isThrottle(e);
+                    if (!throttle && !isConflict(e)) {
+                        settled = true;
+                        onSuccess(causeId);
+                        throw e;
+                    }
+                    if (throttle) {
+                        metrics.count(FollowerMetrics.Counter.THROTTLES);
+                        causeLimiter.onThrottled(causeId);
+                    } else {
+                        metrics.count(FollowerMetrics.Counter.TRANSACTION_CONFLICTS);
+                    }
+                    if (attempt >= settings.maxAttempts || !tryAcquireRetry()) {
+                        settled = true;
+                        if (throttle) {
+                            breaker.onThrottled();
+                        } else {
+                            // contention on the cause item says nothing about table capacity
+                            onSuccess(causeId);
+                        }
+                        throw new WriteThrottledException("write " + (throttle ? "throttled" : "conflicted")
+                                + " after " + attempt + " attempts", settings.maxBackoffMs, e);
+                    }
+                    metrics.count(FollowerMetrics.Counter.RETRIES);
+                    pause(backoffMs(attempt));
+                } catch (RuntimeException e) {
+                    settled = true;
+                    onSuccess(causeId);
+                    throw e;
+                }
+            }
+        } finally {
+            // interrupted while backing off, or an Error: no verdict for the breaker
+            if (!settled) {
+                breaker.onAbandoned();
+            }
+        }
+    }
+
+    /**
+     * Full jitter: a uniform delay between 0 and the capped exponential backoff.
+     */
+    long backoffMs(int attempt) {
+        long ceiling = Math.min(settings.maxBackoffMs, settings.baseBackoffMs << Math.min(20, attempt - 1));
+        return (long) (random.getAsDouble() * (ceiling + 1));
+    }
+
+    static boolean isThrottle(DynamoDbException e) {
+        if (e instanceof TransactionCanceledException && ((TransactionCanceledException) e).hasCancellationReasons()) {
+            for (CancellationReason reason : ((TransactionCanceledException) e).cancellationReasons()) {
+                if ("ThrottlingError".equals(reason.code()) || "ProvisionedThroughputExceeded".equals(reason.code())) {
+                    return true;
+                }
+            }
+        }
+        return e instanceof ProvisionedThroughputExceededException
+                || e instanceof RequestLimitExceededException
+                || e.isThrottlingException();
+    }
+
+    /**
+     * A transaction cancelled because another transaction was writing the
+     * same item, e.g. the cause item of a hot cause. Nothing was written, so
+     * it is retried like a throttle.
+     */
+    static boolean isConflict(DynamoDbException e) {
+        if (e instanceof TransactionCanceledException && ((TransactionCanceledException) e).hasCancellationReasons()) {
+            for (CancellationReason reason : ((TransactionCanceledException) e).cancellationReasons()) {
+                if ("TransactionConflict".equals(reason.code())) {
+                    return true;
+                }
+            }
+        }
+        return e instanceof TransactionConflictException;
+    }
+
+    int remainingRetryBudget() {
+        return budget.get() / 10;
+    }
+
+    CauseRateLimiter causeLimiter() {
+        return causeLimiter;
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    private void onSuccess(String causeId) {
+        causeLimiter.onSuccess(causeId);
+        breaker.onSuccess();
+        int max = settings.retryBudget * 10;
+        budget.accumulateAndGet(1, (current, refund) -> Math.min(max, current + refund));
+    }
+
+    private boolean tryAcquireRetry() {
+        while (true) {
+            int current = budget.get();
+            if (current < 10) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - 10)) {
+                return true;
+            }
+        }
+    }
+
+    private void pause(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            sleeper.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteThrottledException("interrupted while backing off", ms, e);
+        }
+    }
+
+    interface Sleeper {
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    /**
+     * Tunables, read from the environment with defaults suited to a single
+     * follow write per invocation.
+     */
+    public static final class Settings {
+        final int maxAttempts;
+        final long baseBackoffMs;
+        final long maxBackoffMs;
+        final int retryBudget;
+        final double throttledCauseRate;
+        final long maxDeferMs;
+        final int breakerThreshold;
+        final long breakerOpenMs;
+
+        Settings(int maxAttempts, long baseBackoffMs, long maxBackoffMs, int retryBudget,
+                 double throttledCauseRate, long maxDeferMs, int breakerThreshold, long breakerOpenMs) {
+            this.maxAttempts = Math.max(1, maxAttempts);
+            this.baseBackoffMs = baseBackoffMs;
+            this.maxBackoffMs = maxBackoffMs;
+            this.retryBudget = retryBudget;
+            this.throttledCauseRate = throttledCauseRate;
+            this.maxDeferMs = maxDeferMs;
+            this.breakerThreshold = breakerThreshold;
+            this.breakerOpenMs = breakerOpenMs;
+        }
+
+        public static Settings fromEnv() {
+            return new Settings(
+                    Integer.parseInt(envOrDefault("FOLLOW_RETRY_MAX_ATTEMPTS", "3")),
+                    Long.parseLong(envOrDefault("FOLLOW_RETRY_BASE_MS", "25")),
+                    Long.parseLong(envOrDefault("FOLLOW_RETRY_MAX_BACKOFF_MS", "1000")),
+                    Integer.parseInt(envOrDefault("FOLLOW_RETRY_BUDGET", "20")),
+                    Double.parseDouble(envOrDefault("FOLLOW_THROTTLED_CAUSE_RATE", "50")),
+                    Long.parseLong(envOrDefault("FOLLOW_MAX_DEFER_MS", "200")),
+                    Integer.parseInt(envOrDefault("FOLLOW_BREAKER_THRESHOLD", "5")),
+                    Long.parseLong(envOrDefault("FOLLOW_BREAKER_OPEN_MS", "5000")));
+        }
+
+        private static String envOrDefault(String name, String fallback) {
+            String value = System.getenv(name);
+            return (value == null || value.isEmpty()) ? fallback : value;
+        }
+    }
+}
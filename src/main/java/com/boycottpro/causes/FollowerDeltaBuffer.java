@@ -0,0 +1,180 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind coalescing of follower_count deltas for a container that
+ * serves concurrent requests. Callers add their delta to the open batch for
+ * the cause (a LongAdder, so concurrent adds do not contend on one counter)
+ * and then wait; the batch is written as one net delta when it reaches
+ * maxBatch callers or after maxWaitMs, whichever is first. The wait is cut
+ * short so the write still fits in the caller's remaining invocation time.
+ *
+ * Every caller returns only after the write carrying its delta has finished,
+ * and gets that write's result or its exception, so a 200 still means the
+ * delta is durable. Opt-in: FOLLOW_COALESCE_MS=0 (the default) disables it.
+ * With one request per container at a time it only adds latency.
+ */
+public class FollowerDeltaBuffer {
+
+    /**
+     * Writes a net delta for a cause, e.g. CauseFollowerCounter.applyDelta
+     * wrapped in the write policy.
+     */
+    @FunctionalInterface
+    public interface DeltaWriter {
+        Long write(String causeId, String shardKey, int delta);
+    }
+
+    private final DeltaWriter writer;
+    private final long maxWaitMs;
+    private final int maxBatch;
+    private final long reserveMs;
+    private final ConcurrentHashMap<String, Batch> open = new ConcurrentHashMap<>();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public FollowerDeltaBuffer(DeltaWriter writer) {
+        this(writer,
+                Long.parseLong(envOrDefault("FOLLOW_COALESCE_MS", "0")),
+                Integer.parseInt(envOrDefault("FOLLOW_COALESCE_MAX_BATCH", "50")),
+                Long.parseLong(envOrDefault("FOLLOW_COALESCE_RESERVE_MS", "250")));
+    }
+
+    FollowerDeltaBuffer(DeltaWriter writer, long maxWaitMs, int maxBatch, long reserveMs) {
+        this.writer = writer;
+        this.maxWaitMs = maxWaitMs;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.reserveMs = reserveMs;
+    }
+
+    public boolean enabled() {
+        return maxWaitMs > 0;
+    }
+
+    /**
+     * Adds delta to the cause's open batch and blocks until that batch is
+     * written.
+     *
+     * @param remainingMs the caller's remaining invocation time, see
+     *                    {@link #remainingMillis(Context)}
+     * @return what the writer returned for the batch, or null if the batch
+     *         netted out to zero and nothing was written
+     */
+    public Long add(String causeId, String shardKey, int delta, long remainingMs) {
+        Batch batch = join(causeId, shardKey, delta);
+        if (batch.callers.get() >= maxBatch) {
+            flush(causeId, batch);
+        }
+        long waitMs = Math.min(maxWaitMs, remainingMs - reserveMs);
+        if (waitMs > 0) {
+            try {
+                return batch.result.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // nobody flushed in time, so this caller does
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush(causeId, batch);
+        try {
+            return batch.result.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Number of writes made, and number of deltas that rode along on another
+     * caller's write instead of making their own.
+     */
+    public long flushes() {
+        return flushes.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    static long remainingMillis(Context context) {
+        return (context == null) ? Long.MAX_VALUE : context.getRemainingTimeInMillis();
+    }
+
+    private Batch join(String causeId, String shardKey, int delta) {
+        while (true) {
+            Batch batch = open.computeIfAbsent(causeId, id -> new Batch(shardKey));
+            batch.lock.readLock().lock();
+            try {
+                if (!batch.closed) {
+                    batch.delta.add(delta);
+                    batch.callers.incrementAndGet();
+                    return batch;
+                }
+            } finally {
+                batch.lock.readLock().unlock();
+            }
+            // closed between lookup and add; its flusher removes it, start a new one
+            open.remove(causeId, batch);
+        }
+    }
+
+    private void flush(String causeId, Batch batch) {
+        batch.lock.writeLock().lock();
+        try {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+        } finally {
+            batch.lock.writeLock().unlock();
+        }
+        open.remove(causeId, batch);
+        long net = batch.delta.sum();
+        try {
+            Long result = null;
+            if (net != 0) {
+                result = writer.write(causeId, batch.shardKey, Math.toIntExact(net));
+                flushes.increment();
+            }
+            coalesced.add(batch.callers.get() - (net != 0 ? 1 : 0));
+            batch.result.complete(result);
+        } catch (RuntimeException e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return (value == null || value.isBlank()) ? fallback : value;
+    }
+
+    private static final class Batch {
+        final String shardKey;
+        final LongAdder delta = new LongAdder();
+        final AtomicInteger callers = new AtomicInteger();
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+        // adders hold the read lock, so closing waits for adds already in progress
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        boolean closed;
+
+        Batch(String shardKey) {
+            this.shardKey = shardKey;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.boycottpro.causes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-phase latency and DynamoDB counters for the follower handler, written as
+ * CloudWatch Embedded Metric Format lines on stdout. Phase timings go into
+ * preallocated log-scale histograms; every flushEvery invocations one EMF line
+ * is written and the histograms are reset. With flushEvery = 1 each phase is
+ * a plain value so CloudWatch computes percentiles itself; with larger values
+ * the line carries p50/p99/max per phase taken from the histogram.
+ */
+public class FollowerMetrics {
+
+    public enum Phase {
+        JWT("JwtLatency"),
+        VALIDATION("ValidationLatency"),
+        UPDATE_ITEM("UpdateItemLatency"),
+        RESPONSE("ResponseLatency");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    public enum Counter {
+        THROTTLES("Throttles"),
+        TRANSACTION_CONFLICTS("TransactionConflicts"),
+        CONDITIONAL_CHECK_FAILURES("ConditionalCheckFailures"),
+        NOT_FOUND_CACHE_HITS("NotFoundCacheHits"),
+        DUPLICATE_FOLLOWS("DuplicateFollows"),
+        RETRIES("Retries"),
+        SHED_WRITES("ShedWrites"),
+        RATE_LIMITED("RateLimited"),
+        COALESCED_FOLLOWS("CoalescedFollows");
+
+        private final String metricName;
+
+        Counter(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    static final String DEFAULT_NAMESPACE = "BoycottPro/CauseFollowers";
+    // bucket i holds latencies below 2^(i+1) microseconds; the last bucket is open-ended
+    private static final int BUCKETS = 24;
+    private static final Phase[] PHASES = Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private final String namespace;
+    private final String functionName;
+    private final int flushEvery;
+    private final Consumer<String> sink;
+    private final AtomicLongArray histograms = new AtomicLongArray(PHASES.length * BUCKETS);
+    private final AtomicLongArray maxMicros = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+    private final AtomicLongArray statuses = new AtomicLongArray(6);
+    private final DoubleAdder consumedCapacity = new DoubleAdder();
+    private long invocations;
+
+    public FollowerMetrics() {
+        this(envOrDefault("METRICS_NAMESPACE", DEFAULT_NAMESPACE),
+                envOrDefault("AWS_LAMBDA_FUNCTION_NAME", "increment-cause-follower-lambda"),
+                Integer.parseInt(envOrDefault("METRICS_FLUSH_EVERY", "1")),
+                // System.out read per line, so a stream swapped in later (benchmarks) is honoured
+                line -> System.out.println(line));
+    }
+
+    FollowerMetrics(String namespace, String functionName, int flushEvery, Consumer<String> sink) {
+        this.namespace = namespace;
+        this.functionName = functionName;
+        this.flushEvery = Math.max(1, flushEvery);
+        this.sink = sink;
+    }
+
+    public Timer start() {
+        return new Timer();
+    }
+
+    public void count(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    /**
+     * Records a finished invocation and writes an EMF line when one is due.
+     */
+    public void finish(Timer timer, int status, double capacityUnits) {
+        timer.lap(Phase.RESPONSE);
+        for (Phase phase : PHASES) {
+            long micros = timer.nanos[phase.ordinal()] / 1_000;
+            histograms.incrementAndGet(phase.ordinal() * BUCKETS + bucketOf(micros));
+            maxMicros.accumulateAndGet(phase.ordinal(), micros, Math::max);
+        }
+        statuses.incrementAndGet(Math.min(5, status / 100));
+        consumedCapacity.add(capacityUnits);
+        String line = null;
+        synchronized (this) {
+            if (++invocations >= flushEvery) {
+                line = flush(timer);
+            }
+        }
+        if (line != null) {
+            sink.accept(line);
+        }
+    }
+
+    private String flush(Timer last) {
+        long count = invocations;
+        invocations = 0;
+        StringBuilder json = new StringBuilder(768);
+        json.append("{\"_aws\":{\"Timestamp\":").append(System.currentTimeMillis())
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(namespace)
+                .append("\",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":[");
+        for (Phase phase : PHASES) {
+            if (count == 1) {
+                metric(json, phase.metricName, "Microseconds");
+            } else {
+                metric(json, phase.metricName + "P50", "Microseconds");
+                metric(json, phase.metricName + "P99", "Microseconds");
+                metric(json, phase.metricName + "Max", "Microseconds");
+            }
+        }
+        for (Counter counter : COUNTERS) {
+            metric(json, counter.metricName, "Count");
+        }
+        metric(json, "Status2xx", "Count");
+        metric(json, "Status4xx", "Count");
+        metric(json, "Status5xx", "Count");
+        metric(json, "Invocations", "Count");
+        metric(json, "ConsumedWriteCapacity", "None");
+        json.setLength(json.length() - 1);
+        json.append("]}]},\"FunctionName\":\"").append(functionName).append('"');
+        for (Phase phase : PHASES) {
+            int base = phase.ordinal() * BUCKETS;
+            if (count == 1) {
+                value(json, phase.metricName, last.nanos[phase.ordinal()] / 1_000);
+            } else {
+                value(json, phase.metricName + "P50", percentile(base, count, 0.50));
+                value(json, phase.metricName + "P99", percentile(base, count, 0.99));
+                value(json, phase.metricName + "Max", maxMicros.get(phase.ordinal()));
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                histograms.set(base + i, 0);
+            }
+            maxMicros.set(phase.ordinal(), 0);
+        }
+        for (Counter counter : COUNTERS) {
+            value(json, counter.metricName, counters.getAndSet(counter.ordinal(), 0));
+        }
+        value(json, "Status2xx", statuses.getAndSet(2, 0));
+        value(json, "Status4xx", statuses.getAndSet(4, 0));
+        value(json, "Status5xx", statuses.getAndSet(5, 0));
+        value(json, "Invocations", count);
+        json.append(",\"ConsumedWriteCapacity\":").append(consumedCapacity.sumThenReset());
+        if (count == 1 && last.failedPhase != null) {
+            json.append(",\"FailedPhase\":\"").append(last.failedPhase.name()).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    // upper bound of the bucket holding the requested rank
+    private long percentile(int base, long count, double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histograms.get(base + i);
+            if (seen >= rank) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    static int bucketOf(long micros) {
+        int bucket = 63 - Long.numberOfLeadingZeros(Math.max(1, micros));
+        return Math.min(BUCKETS - 1, bucket);
+    }
+
+    private static void metric(StringBuilder json, String name, String unit) {
+        json.append("{\"Name\":\"").append(name).append("\",\"Unit\":\"").append(unit).append("\"},");
+    }
+
+    private static void value(StringBuilder json, String name, long value) {
+        json.append(",\"").append(name).append("\":").append(value);
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return (value == null || value.isEmpty()) ? fallback : value;
+    }
+
+    /**
+     * Times the phases of one invocation. lap(phase) charges the time since the
+     * previous lap to that phase; the next phase is then considered in progress.
+     */
+    public static final class Timer {
+        private final long[] nanos = new long[PHASES.length];
+        private long last = System.nanoTime();
+        private Phase inProgress = PHASES[0];
+        private Phase failedPhase;
+
+        public void lap(Phase phase) {
+            long now = System.nanoTime();
+            nanos[phase.ordinal()] += now - last;
+            last = now;
+            inProgress = PHASES[Math.min(PHASES.length - 1, phase.ordinal() + 1)];
+        }
+
+        /**
+         * Marks the phase in progress as the one the invocation failed in.
+         */
+        public void failed() {
+            failedPhase = inProgress;
+            lap(inProgress);
+        }
+
+        Phase failedPhase() {
+            return failedPhase;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.boycottpro.utilities.Logger;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * DynamoDB Streams consumer on the user_follows table that keeps follower_count
+ * honest. Every INSERT or REMOVE of a follow edge is added to a per-cause
+ * tally (stream_delta) in the tally table, so the number of edges a cause has
+ * is known without ever scanning user_follows; a batch only holds its own net
+ * delta per cause in memory.
+ *
+ * Progress is checkpointed through the event source mapping: the batch is
+ * committed in order, in transactions of at most MAX_CAUSES_PER_COMMIT causes,
+ * and the first record of a chunk that could not be committed is returned as
+ * the batch item failure, so Lambda resumes from exactly there. Each chunk
+ * carries an idempotency token derived from its first record, so retrying a
+ * chunk whose commit outcome was unknown does not tally it twice, even when
+ * the retry delivers more records after it.
+ *
+ * The first time a cause is checked its current follower_count becomes the
+ * baseline; from then on follower_count is expected to equal baseline plus
+ * stream_delta. A touched cause is checked at most once per check interval,
+ * and a correction is only written when the drift exceeds the threshold on two
+ * consecutive checks in the same direction, so follows that are in flight
+ * between the counter write and the stream record are never "corrected".
+ *
+ * Stream shards are processed by several containers at once, and any of them
+ * may confirm the same drift. Before correcting, a container claims the
+ * correction on the tally item (corrected_at), conditional on stream_delta
+ * being what it read and no correction in the last check interval; only the
+ * container whose claim wins writes the delta.
+ */
+public class FollowerReconciliationHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+
+    static final String TALLY_TABLE = "cause_follower_tallies";
+    static final int DEFAULT_DRIFT_THRESHOLD = 10;
+    static final long DEFAULT_CHECK_INTERVAL_MS = 300_000;
+    // TransactWriteItems takes at most 100 items
+    static final int MAX_CAUSES_PER_COMMIT = 100;
+    static final int MAX_TRACKED_CAUSES = 10_000;
+    // shard key for corrections on sharded causes, so they land on one well-known shard
+    static final String CORRECTION_SHARD_KEY = "reconciliation";
+
+    private final DynamoDbClient dynamoDb;
+    private final CauseFollowerCounter followerCounter;
+    private final int driftThreshold;
+    private final long checkIntervalMs;
+    private final LongSupplier clock;
+    private final BoundedCache<String, Long> lastChecked;
+    private final BoundedCache<String, Long> pendingDrift = new BoundedCache<>(MAX_TRACKED_CAUSES);
+
+    public FollowerReconciliationHandler() {
+        this(SharedClients.dynamoDb());
+    }
+
+    public FollowerReconciliationHandler(DynamoDbClient dynamoDb) {
+        this(dynamoDb,
+                Integer.parseInt(envOrDefault("FOLLOWER_DRIFT_THRESHOLD", Integer.toString(DEFAULT_DRIFT_THRESHOLD))),
+                Long.parseLong(envOrDefault("FOLLOWER_DRIFT_CHECK_MS", Long.toString(DEFAULT_CHECK_INTERVAL_MS))),
+                System::currentTimeMillis);
+    }
+
+    FollowerReconciliationHandler(DynamoDbClient dynamoDb, int driftThreshold, long checkIntervalMs,
+                                  LongSupplier clock) {
+        this.dynamoDb = dynamoDb;
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+        this.driftThreshold = Math.max(1, driftThreshold);
+        this.checkIntervalMs = checkIntervalMs;
+        this.clock = clock;
+        this.lastChecked = new BoundedCache<>(MAX_TRACKED_CAUSES, checkIntervalMs, clock);
+    }
+
+    @Override
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        List<DynamodbEvent.DynamodbStreamRecord> records = (event == null || event.getRecords() == null)
+                ? List.of() : event.getRecords();
+        List<String> touched = new ArrayList<>();
+        List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+        int start = 0;
+        while (start < records.size()) {
+            int end;
+            try {
+                end = commit(records, start, chunkEnd(records, start));
+            } catch (Exception e) {
+                Logger.error(102, null, "follower tally commit failed: " + e.getMessage());
+                failures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumberOf(records.get(start))));
+                break;
+            }
+            touched.addAll(deltasOf(records, start, end).keySet());
+            start = end;
+        }
+        for (String causeId : touched) {
+            try {
+                checkDrift(causeId);
+            } catch (Exception e) {
+                // drift is checked again the next time the cause is touched
+                Logger.error(114, null, "drift check failed for " + causeId + ": " + e.getMessage());
+            }
+        }
+        return new StreamsEventResponse(failures);
+    }
+
+    /**
+     * Adds the net deltas of records[start, end) to the tallies and returns
+     * the end of what was committed. A retried chunk can deliver records that
+     * arrived after its first attempt; if that attempt landed, DynamoDB
+     * rejects its token for the longer chunk, so the chunk is cut back until
+     * it matches what was already committed and the new records start the
+     * next chunk.
+     */
+    int commit(List<DynamodbEvent.DynamodbStreamRecord> records, int start, int end) {
+        String token = chunkToken(records.get(start));
+        while (true) {
+            try {
+                commit(deltasOf(records, start, end), token);
+                return end;
+            } catch (IdempotentParameterMismatchException e) {
+                if (end - start == 1) {
+                    throw e;
+                }
+                end--;
+            }
+        }
+    }
+
+    /**
+     * Adds one chunk's net deltas to the tallies in a single transaction.
+     */
+    void commit(Map<String, Long> deltas, String token) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<TransactWriteItem> updates = new ArrayList<>(deltas.size());
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            updates.add(TransactWriteItem.builder().update(Update.builder()
+                    .tableName(TALLY_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(entry.getKey())))
+                    .updateExpression("ADD stream_delta :delta")
+                    .expressionAttributeValues(Map.of(":delta", AttributeValue.fromN(Long.toString(entry.getValue()))))
+                    .build()).build());
+        }
+        dynamoDb.transactWriteItems(TransactWriteItemsRequest.builder()
+                .transactItems(updates)
+                .clientRequestToken(token)
+                .build());
+    }
+
+    /**
+     * Compares follower_count with baseline + stream_delta for one cause and
+     * writes a correction once the drift is confirmed.
+     *
+     * @return the correction applied to follower_count, 0 if none was
+     */
+    long checkDrift(String causeId) {
+        long now = clock.getAsLong();
+        if (lastChecked.putIfAbsent(causeId, now) != null) {
+            // checked less than checkIntervalMs ago
+            return 0;
+        }
+        long actual;
+        try {
+            actual = followerCounter.readFollowerCount(causeId);
+        } catch (CauseNotFoundException e) {
+            return 0;
+        }
+        Map<String, AttributeValue> tally = dynamoDb.getItem(GetItemRequest.builder()
+                .tableName(TALLY_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .consistentRead(true)
+                .build()).item();
+        long streamDelta = numberOf(tally == null ? null : tally.get("stream_delta"));
+        AttributeValue baseline = tally == null ? null : tally.get("baseline");
+        if (baseline == null || baseline.n() == null) {
+            setBaseline(causeId, actual - streamDelta);
+            return 0;
+        }
+        long expected = Long.parseLong(baseline.n()) + streamDelta;
+        long drift = actual - expected;
+        Long previous;
+        synchronized (pendingDrift) {
+            if (Math.abs(drift) < driftThreshold) {
+                pendingDrift.remove(causeId);
+                return 0;
+            }
+            previous = pendingDrift.put(causeId, drift);
+            if (previous == null || Long.signum(previous) != Long.signum(drift)) {
+                return 0;
+            }
+            pendingDrift.remove(causeId);
+        }
+        long correction = -Long.signum(drift) * Math.min(Math.abs(previous), Math.abs(drift));
+        if (!claimCorrection(causeId, streamDelta, now)) {
+            // another container is correcting this drift, or the tally moved since it was read
+            return 0;
+        }
+        followerCounter.applyCorrection(causeId, CORRECTION_SHARD_KEY, Math.toIntExact(correction));
+        Logger.error(214, null, "corrected follower_count of " + causeId + " by " + correction
+                + " (drift " + drift + ")");
+        return correction;
+    }
+
+    private boolean claimCorrection(String causeId, long streamDelta, long now) {
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(TALLY_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                    .updateExpression("SET corrected_at = :now")
+                    .conditionExpression("stream_delta = :stream_delta"
+                            + " AND (attribute_not_exists(corrected_at) OR corrected_at <= :cutoff)")
+                    .expressionAttributeValues(Map.of(
+                            ":now", AttributeValue.fromN(Long.toString(now)),
+                            ":stream_delta", AttributeValue.fromN(Long.toString(streamDelta)),
+                            ":cutoff", AttributeValue.fromN(Long.toString(now - checkIntervalMs))))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private void setBaseline(String causeId, long baseline) {
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(TALLY_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                    .updateExpression("SET baseline = :baseline")
+                    .conditionExpression("attribute_not_exists(baseline)")
+                    .expressionAttributeValues(Map.of(":baseline", AttributeValue.fromN(Long.toString(baseline))))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // another container took the baseline first
+        }
+    }
+
+    // the records from start up to the first one that would make the chunk exceed MAX_CAUSES_PER_COMMIT causes
+    private static int chunkEnd(List<DynamodbEvent.DynamodbStreamRecord> records, int start) {
+        Set<String> causes = new HashSet<>();
+        int end = start;
+        while (end < records.size()) {
+            String causeId = causeIdOf(records.get(end));
+            if (causeId != null && !causes.contains(causeId) && causes.size() == MAX_CAUSES_PER_COMMIT) {
+                break;
+            }
+            if (causeId != null) {
+                causes.add(causeId);
+            }
+            end++;
+        }
+        return end;
+    }
+
+    // net delta per cause of records[start, end), causes that net to zero left out
+    private static Map<String, Long> deltasOf(List<DynamodbEvent.DynamodbStreamRecord> records, int start, int end) {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (int i = start; i < end; i++) {
+            String causeId = causeIdOf(records.get(i));
+            if (causeId != null) {
+                deltas.merge(causeId, (long) deltaOf(records.get(i)), Long::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    /**
+     * Idempotency token for the chunk starting at record. Stream records do
+     * not carry their shard ID, so the stream ARN and the sequence number
+     * stand in for it; neither depends on how far the chunk reaches.
+     */
+    static String chunkToken(DynamodbEvent.DynamodbStreamRecord record) {
+        return UUID.nameUUIDFromBytes((record.getEventSourceARN() + "/" + sequenceNumberOf(record))
+                .getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String causeIdOf(DynamodbEvent.DynamodbStreamRecord record) {
+        StreamRecord stream = record.getDynamodb();
+        if (stream == null || stream.getKeys() == null || stream.getKeys().get("cause_id") == null) {
+            return null;
+        }
+        return stream.getKeys().get("cause_id").getS();
+    }
+
+    // an edge appearing is a follow and an edge disappearing an unfollow; MODIFY changes nothing.
+    // A legacy-unfollow tombstone appearing is an unfollow of a follow that never had an edge.
+    static int deltaOf(DynamodbEvent.DynamodbStreamRecord record) {
+        int sign = isLegacyTombstone(record) ? -1 : 1;
+        if ("INSERT".equals(record.getEventName())) {
+            return sign;
+        }
+        return "REMOVE".equals(record.getEventName()) ? -sign : 0;
+    }
+
+    private static boolean isLegacyTombstone(DynamodbEvent.DynamodbStreamRecord record) {
+        StreamRecord stream = record.getDynamodb();
+        com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue user
+                = (stream == null || stream.getKeys() == null) ? null : stream.getKeys().get("user_id");
+        return user != null && user.getS() != null && user.getS().startsWith(FollowLedger.LEGACY_PREFIX);
+    }
+
+    private static String sequenceNumberOf(DynamodbEvent.DynamodbStreamRecord record) {
+        return record.getDynamodb() == null ? record.getEventID() : record.getDynamodb().getSequenceNumber();
+    }
+
+    private static long numberOf(AttributeValue value) {
+        return (value == null || value.n() == null) ? 0 : Long.parseLong(value.n());
+    }
+
+    private static String envOrDefault(String name, String fallback) {
+        String value = System.getenv(name);
+        return (value == null || value.isEmpty()) ? fallback : value;
+    }
+}
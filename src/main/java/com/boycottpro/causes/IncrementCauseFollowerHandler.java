@@ -9,68 +9,144 @@ import com.boycottpro.utilities.JwtUtility;
 import com.boycottpro.utilities.Logger;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-public class IncrementCauseFollowerHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class IncrementCauseFollowerHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    private static final String PRIME_CAUSE_ID = "__snapstart_prime__";
 
-    private static final String TABLE_NAME = "causes";
     private final DynamoDbClient dynamoDb;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CauseFollowerCounter followerCounter;
+    private final FollowLedger followLedger;
+    private final FollowWritePolicy writePolicy;
+    private final FollowRateLimiter rateLimiter;
+    private FollowerDeltaBuffer deltaBuffer;
+    private final NegativeCauseCache missingCauses = new NegativeCauseCache();
+    // follower_count returned by this container's own writes, so a follow tap
+    // followed by a count refresh costs one write and no read; short-lived
+    // because other containers keep writing to the same cause
+    private final BoundedCache<String, Long> followerCounts =
+            new BoundedCache<>(10_000, TimeUnit.SECONDS.toMillis(30), System::currentTimeMillis);
+    private final FollowerMetrics metrics = new FollowerMetrics();
+    private final ObjectMapper objectMapper;
 
     public IncrementCauseFollowerHandler() {
-        this.dynamoDb = DynamoDbClient.create();
+        this.dynamoDb = SharedClients.dynamoDb();
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+        this.followLedger = new FollowLedger(dynamoDb, followerCounter);
+        this.writePolicy = new FollowWritePolicy(FollowWritePolicy.Settings.fromEnv(), metrics);
+        this.rateLimiter = new FollowRateLimiter(dynamoDb);
+        this.deltaBuffer = new FollowerDeltaBuffer(this::writeDelta);
+        this.objectMapper = SharedClients.objectMapper();
+        Core.getGlobalContext().register(this);
     }
 
     public IncrementCauseFollowerHandler(DynamoDbClient dynamoDb) {
+        this(dynamoDb, SharedClients.objectMapper());
+    }
+
+    /**
+     * For CauseRouter, which hands every handler the same client and mapper.
+     */
+    IncrementCauseFollowerHandler(DynamoDbClient dynamoDb, ObjectMapper objectMapper) {
         this.dynamoDb = dynamoDb;
+        this.objectMapper = objectMapper;
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+        this.followLedger = new FollowLedger(dynamoDb, followerCounter);
+        this.writePolicy = new FollowWritePolicy(FollowWritePolicy.Settings.fromEnv(), metrics);
+        this.rateLimiter = new FollowRateLimiter(dynamoDb);
+        this.deltaBuffer = new FollowerDeltaBuffer(this::writeDelta);
     }
 
+
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent event, Context context) {
+        FollowerMetrics.Timer timer = metrics.start();
+        APIGatewayProxyResponseEvent response = handle(event, context, timer);
+        metrics.finish(timer, response.getStatusCode(), followerCounter.drainConsumedCapacity());
+        return response;
+    }
+
+    private APIGatewayProxyResponseEvent handle(APIGatewayProxyRequestEvent event, Context context,
+                                                FollowerMetrics.Timer timer) {
         String sub = null;
-        int lineNum = 35;
         try {
             sub = JwtUtility.getSubFromRestEvent(event);
+            timer.lap(FollowerMetrics.Phase.JWT);
             if (sub == null) {
-            Logger.error(38, sub, "user is Unauthorized");
-            return response(401, Map.of("message", "Unauthorized"));
+            Logger.error(85, sub, "user is Unauthorized");
+            timer.lap(FollowerMetrics.Phase.VALIDATION);
+            return response(401, FollowRequestTemplate.UNAUTHORIZED_BODY);
+            }
+            if (!"GET".equalsIgnoreCase(event.getHttpMethod())) {
+                long retryAfterMs = rateLimitRetryAfterMs(sub);
+                if (retryAfterMs > 0) {
+                    Logger.error(92, sub, "follow rate limit exceeded");
+                    long seconds = FollowRateLimiter.retryAfterSeconds(retryAfterMs);
+                    timer.lap(FollowerMetrics.Phase.VALIDATION);
+                    return response(429, FollowRequestTemplate.rateLimitedBody(seconds), seconds);
+                }
             }
-            lineNum = 41;
             Map<String, String> pathParams = event.getPathParameters();
             String causeId = (pathParams != null) ? pathParams.get("cause_id") : null;
             String incrementStr = (pathParams != null) ? pathParams.get("increment") : null;
             if (causeId == null || causeId.isEmpty()) {
-                Logger.error(47, sub, "cause_id not present");
-                ResponseMessage message = new ResponseMessage(400,
-                        "cause_id not present", "Missing cause_id");
-                return response(400,message);
+                Logger.error(102, sub, "cause_id not present");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(400, FollowRequestTemplate.MISSING_CAUSE_BODY);
+            }
+            if ("GET".equalsIgnoreCase(event.getHttpMethod())) {
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                long followerCount = readFollowerCount(causeId);
+                timer.lap(FollowerMetrics.Phase.UPDATE_ITEM);
+                return response(200, FollowRequestTemplate.followerCountBody(causeId, followerCount, null));
             }
             if (incrementStr == null || incrementStr.isEmpty()) {
-                Logger.error(53, sub, "increment not present");
-                ResponseMessage message = new ResponseMessage(400,
-                        "increment not present", "Missing increment");
-                return response(400,message);
+                Logger.error(113, sub, "increment not present");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(400, FollowRequestTemplate.MISSING_INCREMENT_BODY);
             }
             if (!(incrementStr.equals("true") || incrementStr.equals("false"))) {
-                Logger.error(59, sub, "increment not acceptable value");
-                ResponseMessage message = new ResponseMessage(400,
-                        "increment not acceptable value", "Expected true/false");
-                return response(400,message);
+                Logger.error(118, sub, "increment not acceptable value");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return response(400, FollowRequestTemplate.BAD_INCREMENT_BODY);
             }
-            lineNum = 64;
             boolean increment = Boolean.parseBoolean(incrementStr);
-            boolean updated = incrementCauseRecord(causeId, increment);
-            lineNum = 67;
-            return response(200,"cause record updated = " + updated);
+            timer.lap(FollowerMetrics.Phase.VALIDATION);
+            Long followerCount = incrementCauseRecord(causeId, sub, increment,
+                    FollowerDeltaBuffer.remainingMillis(context));
+            timer.lap(FollowerMetrics.Phase.UPDATE_ITEM);
+            return response(200, FollowRequestTemplate.followerCountBody(causeId, followerCount,
+                    "cause record updated = true"));
+        } catch (WriteThrottledException e) {
+            timer.failed();
+            Logger.error(131, sub, e.getMessage());
+            return response(503, FollowRequestTemplate.throttledBody(e.getRetryAfterSeconds()),
+                    e.getRetryAfterSeconds());
+        } catch (CauseNotFoundException e) {
+            timer.failed();
+            Logger.error(136, sub, e.getMessage());
+            return response(404, FollowRequestTemplate.NOT_FOUND_BODY);
         } catch (Exception e) {
-            Logger.error(lineNum, sub, e.getMessage());
+            timer.failed();
+            Logger.error(140, sub, e.getMessage());
             return response(500,Map.of("error", "Unexpected server error: " + e.getMessage()) );
         }
     }
+    private APIGatewayProxyResponseEvent response(int status, String body, long retryAfterSeconds) {
+        return response(status, body).withHeaders(Map.of(
+                "Content-Type", "application/json",
+                "Retry-After", Long.toString(retryAfterSeconds)));
+    }
+
     private APIGatewayProxyResponseEvent response(int status, Object body) {
         String responseBody = null;
         try {
@@ -78,48 +154,257 @@ public class IncrementCauseFollowerHandler implements RequestHandler<APIGatewayP
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
+        return response(status, responseBody);
+    }
+
+    // body is already serialized JSON
+    private APIGatewayProxyResponseEvent response(int status, String body) {
         return new APIGatewayProxyResponseEvent()
                 .withStatusCode(status)
-                .withHeaders(Map.of("Content-Type", "application/json"))
-                .withBody(responseBody);
+                .withHeaders(FollowRequestTemplate.JSON_HEADERS)
+                .withBody(body);
+    }
+    /**
+     * Moves the caller's follow edge to the requested state. Repeating a
+     * request is a no-op. Returns the follower_count read back after the
+     * write, since the transaction that keeps the edge and the count in step
+     * cannot return it; for a repeat, the count this container last read, if
+     * it is still cached. Null when there is no count to return.
+     */
+    Long incrementCauseRecord(String causeId, String sub, boolean increment) {
+        return incrementCauseRecord(causeId, sub, increment, Long.MAX_VALUE);
     }
-    private boolean incrementCauseRecord(String causeId, boolean increment) {
+
+    /**
+     * As above; remainingMs bounds how long the delta may wait in the
+     * FollowerDeltaBuffer when coalescing is enabled.
+     */
+    Long incrementCauseRecord(String causeId, String sub, boolean increment, long remainingMs) {
+        if (missingCauses.isKnownMissing(causeId)) {
+            metrics.count(FollowerMetrics.Counter.NOT_FOUND_CACHE_HITS);
+            throw new CauseNotFoundException(causeId);
+        }
         try {
-            int delta = increment ? 1 : -1;
-
-            Map<String, AttributeValue> key = Map.of("cause_id", AttributeValue.fromS(causeId));
-            Map<String, AttributeValue> values = new HashMap<>();
-            values.put(":delta", AttributeValue.fromN(Integer.toString(delta)));
-            values.put(":zero", AttributeValue.fromN("0"));
-
-            UpdateItemRequest request = UpdateItemRequest.builder()
-                    .tableName(TABLE_NAME)
-                    .key(key)
-                    .updateExpression("SET follower_count = if_not_exists(follower_count, :zero) + :delta")
-                    .expressionAttributeValues(values)
-                    .conditionExpression("attribute_exists(cause_id)")
-                    .build();
-
-            dynamoDb.updateItem(request);
-            return true;
-        } catch (ConditionalCheckFailedException e) {
-            System.err.println("Cause not found: " + causeId);
+            if (deltaBuffer.enabled()) {
+                return coalescedIncrement(causeId, sub, increment, remainingMs);
+            }
+            FollowLedger.Outcome outcome = writePolicy.execute(causeId,
+                    () -> followLedger.setFollowing(causeId, sub, increment));
+            if (outcome == FollowLedger.Outcome.ALREADY_APPLIED) {
+                metrics.count(FollowerMetrics.Counter.DUPLICATE_FOLLOWS);
+                return followerCounts.get(causeId);
+            }
+            return readBack(causeId);
+        } catch (CauseNotFoundException e) {
+            metrics.count(FollowerMetrics.Counter.CONDITIONAL_CHECK_FAILURES);
+            missingCauses.markMissing(causeId);
+            throw e;
+        }
+    }
+
+    /**
+     * Coalesced variant: the edge is written on its own, so the check that
+     * makes repeats a no-op still applies per request, and only the
+     * follower_count delta goes through the buffer. If the buffered write
+     * fails without changing the count (missing cause, throttled) the edge is
+     * put back, so that retrying the request applies both. Any other failure
+     * may have landed the delta, so the edge stays and the reconciler settles
+     * the count.
+     */
+    private Long coalescedIncrement(String causeId, String sub, boolean increment, long remainingMs) {
+        FollowLedger.Outcome outcome = writePolicy.execute(causeId,
+                () -> followLedger.setEdge(causeId, sub, increment));
+        if (outcome == FollowLedger.Outcome.ALREADY_APPLIED) {
+            metrics.count(FollowerMetrics.Counter.DUPLICATE_FOLLOWS);
+            return followerCounts.get(causeId);
+        }
+        if (outcome == FollowLedger.Outcome.LEGACY_UNFOLLOWED) {
+            return readBack(causeId);
+        }
+        Long followerCount;
+        try {
+            followerCount = deltaBuffer.add(causeId, sub, increment ? 1 : -1, remainingMs);
+        } catch (CauseNotFoundException | WriteThrottledException e) {
+            revertEdge(causeId, sub, increment);
             throw e;
         } catch (DynamoDbException e) {
-            e.printStackTrace();
+            if (FollowWritePolicy.isThrottle(e)) {
+                revertEdge(causeId, sub, increment);
+            }
+            throw e;
+        }
+        metrics.count(FollowerMetrics.Counter.COALESCED_FOLLOWS);
+        if (followerCount == null) {
+            // a sharded cause's delta returns no count, and a batch that netted
+            // to zero wrote nothing, so nothing has checked yet that the cause
+            // exists; the read back does, before this caller's edge is kept
+            try {
+                return readBack(causeId);
+            } catch (CauseNotFoundException e) {
+                revertEdge(causeId, sub, increment);
+                throw e;
+            }
+        }
+        // the count after the whole batch, not just this caller's delta
+        followerCounts.put(causeId, followerCount);
+        return followerCount;
+    }
+
+    private void revertEdge(String causeId, String sub, boolean increment) {
+        try {
+            followLedger.revertEdge(causeId, sub, increment);
+        } catch (RuntimeException e) {
+            // the reconciler corrects the count drift this leaves behind
+            Logger.error(258, sub, "could not revert follow edge: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the follower_count after this container's write and caches it.
+     * The write has already succeeded, so a failed read only leaves the count
+     * out of the response.
+     *
+     * @throws CauseNotFoundException if the cause does not exist
+     */
+    private Long readBack(String causeId) {
+        try {
+            long followerCount = followerCounter.readFollowerCountAfterWrite(causeId);
+            followerCounts.put(causeId, followerCount);
+            return followerCount;
+        } catch (CauseNotFoundException e) {
             throw e;
+        } catch (RuntimeException e) {
+            followerCounts.remove(causeId);
+            Logger.error(278, null, "could not read back follower_count: " + e.getMessage());
+            return null;
         }
     }
 
+    private Long writeDelta(String causeId, String shardKey, int delta) {
+        return writePolicy.execute(causeId, () -> {
+            try {
+                return followerCounter.applyDelta(causeId, shardKey, delta);
+            } catch (ConditionalCheckFailedException e) {
+                throw new CauseNotFoundException(causeId);
+            }
+        });
+    }
+
+    /**
+     * Counts a follow toggle against the caller's rate limit. Returns 0 if the
+     * toggle may go ahead, otherwise how long the caller should wait.
+     */
+    long rateLimitRetryAfterMs(String sub) {
+        long retryAfterMs = rateLimiter.retryAfterMs(sub);
+        if (retryAfterMs > 0) {
+            metrics.count(FollowerMetrics.Counter.RATE_LIMITED);
+        }
+        return retryAfterMs;
+    }
+
+    /**
+     * Read path for the follower count: served from the counts our own writes
+     * returned when possible, otherwise read from DynamoDB and cached.
+     */
+    long readFollowerCount(String causeId) {
+        if (missingCauses.isKnownMissing(causeId)) {
+            throw new CauseNotFoundException(causeId);
+        }
+        Long cached = followerCounts.get(causeId);
+        if (cached != null) {
+            return cached;
+        }
+        long followerCount = followerCounter.readFollowerCount(causeId);
+        followerCounts.put(causeId, followerCount);
+        return followerCount;
+    }
+
+    /**
+     * Turns on write coalescing for this handler, overriding FOLLOW_COALESCE_MS.
+     */
+    void coalesceWrites(long maxWaitMs, int maxBatch) {
+        this.deltaBuffer = new FollowerDeltaBuffer(this::writeDelta, maxWaitMs, maxBatch, 0);
+    }
+
+    FollowerDeltaBuffer deltaBuffer() {
+        return deltaBuffer;
+    }
+
+    FollowWritePolicy writePolicy() {
+        return writePolicy;
+    }
+
+    RecentFollowCache recentFollows() {
+        return followLedger.recentFollows();
+    }
+
+    NegativeCauseCache missingCauses() {
+        return missingCauses;
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    FollowerMetrics metrics() {
+        return metrics;
+    }
+
+    double drainConsumedCapacity() {
+        return followerCounter.drainConsumedCapacity();
+    }
+
     private APIGatewayProxyResponseEvent response(int status, String body, String dev) {
         try {
             String json = objectMapper.writeValueAsString(new ResponseMessage(status, body, dev));
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(status)
-                    .withHeaders(Map.of("Content-Type", "application/json"))
+                    .withHeaders(FollowRequestTemplate.JSON_HEADERS)
                     .withBody(json);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Runs before the SnapStart snapshot is taken. Loads and initializes the
+     * Jackson, JwtUtility and SDK request classes the first invocation would
+     * otherwise pay for, without making any network calls. Priming is only an
+     * optimization, so a failure is logged rather than aborting the snapshot.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        try {
+            objectMapper.writeValueAsString(new ResponseMessage(400, "cause_id not present", "Missing cause_id"));
+            // initializing the template serializes the fixed error bodies
+            response(401, FollowRequestTemplate.UNAUTHORIZED_BODY);
+            APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+            Map<String, Object> authorizer = new HashMap<>();
+            authorizer.put("claims", Map.of("sub", PRIME_CAUSE_ID));
+            APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+            rc.setAuthorizer(authorizer);
+            event.setRequestContext(rc);
+            JwtUtility.getSubFromRestEvent(event);
+            followLedger.followRequest(PRIME_CAUSE_ID, PRIME_CAUSE_ID, true);
+            response(200, FollowRequestTemplate.followerCountBody(PRIME_CAUSE_ID, 0L, "cause record updated = true"));
+        } catch (Exception e) {
+            Logger.error(387, null, "snapshot priming failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs after the snapshot is restored. Connections held in the snapshot are
+     * stale, so a cheap read opens a fresh one before the first real request.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        try {
+            dynamoDb.getItem(GetItemRequest.builder()
+                    .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(PRIME_CAUSE_ID)))
+                    .build());
+        } catch (SdkException e) {
+            Logger.error(403, null, "connection priming failed: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.List;
+
+/**
+ * Registers IncrementCauseFollowerHandler with CauseRouter: follow/unfollow
+ * and the follower count read.
+ */
+public class IncrementCauseFollowerRoute implements CauseRoute {
+
+    static final String FOLLOW = "POST /causes/{cause_id}/followers/{increment}";
+    static final String READ = "GET /causes/{cause_id}/followers";
+
+    @Override
+    public List<String> routeKeys() {
+        return List.of(FOLLOW, READ);
+    }
+
+    @Override
+    public RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> create(DynamoDbClient dynamoDb,
+                                                                                           ObjectMapper objectMapper) {
+        return new IncrementCauseFollowerHandler(dynamoDb, objectMapper);
+    }
+}
@@ -0,0 +1,203 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.boycottpro.utilities.Logger;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Streaming variant of IncrementCauseFollowerHandler. Instead of binding the
+ * whole API Gateway event, it pulls httpMethod, pathParameters.cause_id,
+ * pathParameters.increment and requestContext.authorizer.claims.sub with a
+ * JsonParser and skips everything else, then writes the proxy response
+ * straight to the output stream. Like the POJO handler it serves the
+ * follower count read (GET) as well as follow and unfollow, with the same
+ * FollowRequestTemplate bodies.
+ */
+public class IncrementCauseFollowerStreamHandler implements RequestStreamHandler {
+
+    private static final ObjectMapper MAPPER = SharedClients.objectMapper();
+    private static final JsonFactory JSON = MAPPER.getFactory();
+
+    private final IncrementCauseFollowerHandler handler;
+
+    public IncrementCauseFollowerStreamHandler() {
+        this.handler = new IncrementCauseFollowerHandler();
+    }
+
+    public IncrementCauseFollowerStreamHandler(DynamoDbClient dynamoDb) {
+        this.handler = new IncrementCauseFollowerHandler(dynamoDb);
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        FollowerMetrics.Timer timer = handler.metrics().start();
+        FollowRequest request = new FollowRequest();
+        try (JsonParser parser = JSON.createParser(input)) {
+            parseEvent(parser, request);
+        }
+        timer.lap(FollowerMetrics.Phase.JWT);
+        int status = respond(request, context, timer, output);
+        handler.metrics().finish(timer, status, handler.drainConsumedCapacity());
+    }
+
+    private int respond(FollowRequest request, Context context, FollowerMetrics.Timer timer,
+                        OutputStream output) throws IOException {
+        String sub = request.sub;
+        try {
+            if (sub == null) {
+                Logger.error(59, sub, "user is Unauthorized");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return writeResponse(output, 401, FollowRequestTemplate.UNAUTHORIZED_BODY);
+            }
+            boolean read = "GET".equalsIgnoreCase(request.httpMethod);
+            if (!read) {
+                long retryAfterMs = handler.rateLimitRetryAfterMs(sub);
+                if (retryAfterMs > 0) {
+                    Logger.error(67, sub, "follow rate limit exceeded");
+                    long seconds = FollowRateLimiter.retryAfterSeconds(retryAfterMs);
+                    timer.lap(FollowerMetrics.Phase.VALIDATION);
+                    return writeResponse(output, 429, FollowRequestTemplate.rateLimitedBody(seconds), seconds);
+                }
+            }
+            if (request.causeId == null || request.causeId.isEmpty()) {
+                Logger.error(74, sub, "cause_id not present");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return writeResponse(output, 400, FollowRequestTemplate.MISSING_CAUSE_BODY);
+            }
+            if (read) {
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                long followerCount = handler.readFollowerCount(request.causeId);
+                timer.lap(FollowerMetrics.Phase.UPDATE_ITEM);
+                return writeResponse(output, 200,
+                        FollowRequestTemplate.followerCountBody(request.causeId, followerCount, null));
+            }
+            if (request.increment == null || request.increment.isEmpty()) {
+                Logger.error(86, sub, "increment not present");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return writeResponse(output, 400, FollowRequestTemplate.MISSING_INCREMENT_BODY);
+            }
+            if (!(request.increment.equals("true") || request.increment.equals("false"))) {
+                Logger.error(91, sub, "increment not acceptable value");
+                timer.lap(FollowerMetrics.Phase.VALIDATION);
+                return writeResponse(output, 400, FollowRequestTemplate.BAD_INCREMENT_BODY);
+            }
+            timer.lap(FollowerMetrics.Phase.VALIDATION);
+            Long followerCount = handler.incrementCauseRecord(request.causeId, sub,
+                    Boolean.parseBoolean(request.increment), FollowerDeltaBuffer.remainingMillis(context));
+            timer.lap(FollowerMetrics.Phase.UPDATE_ITEM);
+            return writeResponse(output, 200, FollowRequestTemplate.followerCountBody(request.causeId, followerCount,
+                    "cause record updated = true"));
+        } catch (WriteThrottledException e) {
+            timer.failed();
+            Logger.error(103, sub, e.getMessage());
+            return writeResponse(output, 503, FollowRequestTemplate.throttledBody(e.getRetryAfterSeconds()),
+                    e.getRetryAfterSeconds());
+        } catch (CauseNotFoundException e) {
+            timer.failed();
+            Logger.error(108, sub, e.getMessage());
+            return writeResponse(output, 404, FollowRequestTemplate.NOT_FOUND_BODY);
+        } catch (Exception e) {
+            timer.failed();
+            Logger.error(112, sub, e.getMessage());
+            return writeResponse(output, 500,
+                    FollowRequestTemplate.serialize(Map.of("error", "Unexpected server error: " + e.getMessage())));
+        }
+    }
+
+    private static void parseEvent(JsonParser parser, FollowRequest request) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_STRING && "httpMethod".equals(field)) {
+                request.httpMethod = parser.getText();
+            } else if (value == JsonToken.START_OBJECT && "pathParameters".equals(field)) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("cause_id".equals(name)) {
+                        request.causeId = parser.getValueAsString();
+                    } else if ("increment".equals(name)) {
+                        request.increment = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (value == JsonToken.START_OBJECT && "requestContext".equals(field)) {
+                request.sub = findSub(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // walks requestContext looking for authorizer.claims.sub, leaving the parser at the end of requestContext
+    private static String findSub(JsonParser parser) throws IOException {
+        String sub = null;
+        int depth = 0;
+        String[] path = {"authorizer", "claims", "sub"};
+        while (true) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_OBJECT) {
+                if (depth == 0) {
+                    return sub;
+                }
+                depth--;
+                continue;
+            }
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (!path[depth].equals(name)) {
+                parser.skipChildren();
+            } else if (depth == path.length - 1) {
+                sub = (value == JsonToken.VALUE_STRING) ? parser.getText() : null;
+                parser.skipChildren();
+            } else if (value == JsonToken.START_OBJECT) {
+                depth++;
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static int writeResponse(OutputStream output, int status, String body) throws IOException {
+        return writeResponse(output, status, body, 0);
+    }
+
+    private static int writeResponse(OutputStream output, int status, String body, long retryAfterSeconds)
+            throws IOException {
+        try (JsonGenerator generator = JSON.createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeNumberField("statusCode", status);
+            generator.writeObjectFieldStart("headers");
+            generator.writeStringField("Content-Type", "application/json");
+            if (retryAfterSeconds > 0) {
+                generator.writeStringField("Retry-After", Long.toString(retryAfterSeconds));
+            }
+            generator.writeEndObject();
+            generator.writeStringField("body", body);
+            generator.writeEndObject();
+        }
+        return status;
+    }
+
+    private static final class FollowRequest {
+        private String httpMethod;
+        private String causeId;
+        private String increment;
+        private String sub;
+    }
+}
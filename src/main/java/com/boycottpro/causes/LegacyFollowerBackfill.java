@@ -0,0 +1,106 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One-off migration for the follow ledger. Follows made before user_follows
+ * existed have no edge, so their unfollows could never lower follower_count.
+ * For every cause this sets legacy_followers to follower_count minus the
+ * edges the cause has, which is how many unfollows without an edge FollowLedger
+ * may still count. Causes that already have legacy_followers are left alone,
+ * so the job can be rerun after a partial failure.
+ *
+ * Run it once right after the ledger is deployed. Follows made while it runs
+ * can be off by the few that land between the edge scan and the cause update.
+ *
+ * <pre>
+ * java -cp target/increment-cause-follower-lambda.jar com.boycottpro.causes.LegacyFollowerBackfill
+ * </pre>
+ */
+public class LegacyFollowerBackfill {
+
+    private final DynamoDbClient dynamoDb;
+    private final CauseFollowerCounter followerCounter;
+
+    public LegacyFollowerBackfill(DynamoDbClient dynamoDb) {
+        this.dynamoDb = dynamoDb;
+        this.followerCounter = new CauseFollowerCounter(dynamoDb);
+    }
+
+    public static void main(String[] args) {
+        int updated = new LegacyFollowerBackfill(SharedClients.dynamoDb()).run();
+        System.out.println("legacy_followers set on " + updated + " causes");
+    }
+
+    /**
+     * @return the number of causes that got a legacy_followers value
+     */
+    public int run() {
+        Map<String, Long> edges = countEdges();
+        int updated = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanResponse page = dynamoDb.scan(ScanRequest.builder()
+                    .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                    .projectionExpression("cause_id, " + CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR)
+                    .exclusiveStartKey(startKey)
+                    .build());
+            for (Map<String, AttributeValue> cause : page.items()) {
+                if (!cause.containsKey(CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR)
+                        && backfill(cause.get("cause_id").s(), edges.getOrDefault(cause.get("cause_id").s(), 0L))) {
+                    updated++;
+                }
+            }
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()
+                    ? page.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return updated;
+    }
+
+    boolean backfill(String causeId, long edgeCount) {
+        long legacy;
+        try {
+            legacy = Math.max(0, followerCounter.readFollowerCount(causeId) - edgeCount);
+        } catch (CauseNotFoundException e) {
+            return false;
+        }
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                    .key(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                    .updateExpression("SET " + CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR + " = :legacy")
+                    .conditionExpression("attribute_exists(cause_id) AND attribute_not_exists("
+                            + CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR + ")")
+                    .expressionAttributeValues(Map.of(":legacy", AttributeValue.fromN(Long.toString(legacy))))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    // edges per cause, not counting legacy-unfollow tombstones
+    private Map<String, Long> countEdges() {
+        Map<String, Long> edges = new HashMap<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanResponse page = dynamoDb.scan(ScanRequest.builder()
+                    .tableName(FollowLedger.LEDGER_TABLE)
+                    .projectionExpression("user_id, cause_id")
+                    .exclusiveStartKey(startKey)
+                    .build());
+            for (Map<String, AttributeValue> edge : page.items()) {
+                if (!edge.get("user_id").s().startsWith(FollowLedger.LEGACY_PREFIX)) {
+                    edges.merge(edge.get("cause_id").s(), 1L, Long::sum);
+                }
+            }
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()
+                    ? page.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return edges;
+    }
+}
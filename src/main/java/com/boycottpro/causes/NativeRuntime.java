@@ -0,0 +1,236 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.boycottpro.utilities.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+/**
+ * Custom runtime loop for the provided.al2023 runtime, used as the bootstrap
+ * of the native-image build (mvn -Pnative package). It polls the Lambda
+ * Runtime API for the next invocation, runs it through
+ * IncrementCauseFollowerStreamHandler and posts the response, or an error
+ * document if the handler throws. It also runs on a JVM, which is how it is
+ * tested against a stub Runtime API and how its startup is compared with the
+ * shaded jar.
+ */
+public class NativeRuntime {
+
+    static final String API_VERSION = "/2018-06-01/runtime";
+    private static final String TRACE_PROPERTY = "com.amazonaws.xray.traceHeader";
+
+    private final String baseUrl;
+    private final RequestStreamHandler handler;
+    private final LongSupplier clock;
+
+    NativeRuntime(String runtimeApi, RequestStreamHandler handler, LongSupplier clock) {
+        this.baseUrl = "http://" + runtimeApi + API_VERSION;
+        this.handler = handler;
+        this.clock = clock;
+    }
+
+    public static void main(String[] args) {
+        String runtimeApi = System.getenv("AWS_LAMBDA_RUNTIME_API");
+        RequestStreamHandler handler;
+        try {
+            handler = new IncrementCauseFollowerStreamHandler();
+        } catch (RuntimeException | Error e) {
+            reportInitError(runtimeApi, e);
+            System.exit(1);
+            return;
+        }
+        NativeRuntime runtime = new NativeRuntime(runtimeApi, handler, System::currentTimeMillis);
+        while (true) {
+            try {
+                runtime.processNext();
+            } catch (IOException e) {
+                // the Runtime API is local; a failed poll is retried straight away
+                Logger.error(60, null, "runtime API call failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits for one invocation, handles it and reports the outcome.
+     *
+     * @return the request id of the invocation that was handled
+     */
+    String processNext() throws IOException {
+        HttpURLConnection next = open(baseUrl + "/invocation/next", "GET");
+        // the long poll only returns when there is an event
+        next.setReadTimeout(0);
+        byte[] event;
+        try (InputStream input = next.getInputStream()) {
+            event = input.readAllBytes();
+        }
+        String requestId = next.getHeaderField("Lambda-Runtime-Aws-Request-Id");
+        String deadline = next.getHeaderField("Lambda-Runtime-Deadline-Ms");
+        String functionArn = next.getHeaderField("Lambda-Runtime-Invoked-Function-Arn");
+        String traceId = next.getHeaderField("Lambda-Runtime-Trace-Id");
+        if (traceId != null) {
+            System.setProperty(TRACE_PROPERTY, traceId);
+        } else {
+            System.clearProperty(TRACE_PROPERTY);
+        }
+        InvocationContext context = new InvocationContext(requestId, functionArn,
+                deadline == null ? Long.MAX_VALUE : Long.parseLong(deadline), clock);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(512);
+        try {
+            handler.handleRequest(new ByteArrayInputStream(event), output, context);
+        } catch (Exception | Error e) {
+            Logger.error(93, null, "invocation " + requestId + " failed: " + e);
+            post(baseUrl + "/invocation/" + requestId + "/error", errorDocument(e));
+            return requestId;
+        }
+        post(baseUrl + "/invocation/" + requestId + "/response", output.toByteArray());
+        return requestId;
+    }
+
+    private static void reportInitError(String runtimeApi, Throwable e) {
+        Logger.error(102, null, "handler initialization failed: " + e);
+        try {
+            post("http://" + runtimeApi + API_VERSION + "/init/error", errorDocument(e));
+        } catch (IOException ignored) {
+            // the process exits and Lambda reports the init failure itself
+        }
+    }
+
+    static byte[] errorDocument(Throwable e) {
+        return ("{\"errorMessage\":\"" + escape(String.valueOf(e.getMessage()))
+                + "\",\"errorType\":\"" + escape(e.getClass().getName()) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static void post(String url, byte[] body) throws IOException {
+        HttpURLConnection connection = open(url, "POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/json");
+        if (url.endsWith("/error")) {
+            connection.setRequestProperty("Lambda-Runtime-Function-Error-Type", "Unhandled");
+        }
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        try (InputStream in = connection.getInputStream()) {
+            in.readAllBytes();
+        }
+    }
+
+    private static HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    static final class InvocationContext implements Context {
+        private final String requestId;
+        private final String functionArn;
+        private final long deadlineMs;
+        private final LongSupplier clock;
+
+        InvocationContext(String requestId, String functionArn, long deadlineMs, LongSupplier clock) {
+            this.requestId = requestId;
+            this.functionArn = functionArn;
+            this.deadlineMs = deadlineMs;
+            this.clock = clock;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return requestId;
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return System.getenv("AWS_LAMBDA_LOG_GROUP_NAME");
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return System.getenv("AWS_LAMBDA_LOG_STREAM_NAME");
+        }
+
+        @Override
+        public String getFunctionName() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return System.getenv("AWS_LAMBDA_FUNCTION_VERSION");
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return functionArn;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, deadlineMs - clock.getAsLong()));
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            String memory = System.getenv("AWS_LAMBDA_FUNCTION_MEMORY_SIZE");
+            return (memory == null || memory.isEmpty()) ? 0 : Integer.parseInt(memory);
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return StdoutLogger.INSTANCE;
+        }
+    }
+
+    private static final class StdoutLogger implements LambdaLogger {
+        private static final StdoutLogger INSTANCE = new StdoutLogger();
+
+        @Override
+        public void log(String message) {
+            System.out.print(message);
+        }
+
+        @Override
+        public void log(byte[] message) {
+            System.out.write(message, 0, message.length);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.boycottpro.causes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-container cache of cause ids that are known not to exist, so repeated
+ * requests for a bogus id are answered without a conditional write. Entries
+ * expire after a TTL (a cause created later becomes visible again) and the
+ * least recently used entry is evicted once the cache is full.
+ */
+public class NegativeCauseCache {
+
+    static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final BoundedCache<String, Boolean> missing;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public NegativeCauseCache() {
+        this(DEFAULT_TTL_MS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    NegativeCauseCache(long ttlMs, int maxEntries, LongSupplier clock) {
+        this.missing = new BoundedCache<>(maxEntries, ttlMs, clock);
+    }
+
+    /**
+     * Returns true if causeId was recently found to be missing. Counts a hit or a miss.
+     */
+    public boolean isKnownMissing(String causeId) {
+        if (missing.get(causeId) != null) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    public void markMissing(String causeId) {
+        missing.put(causeId, Boolean.TRUE);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return missing.size();
+    }
+}
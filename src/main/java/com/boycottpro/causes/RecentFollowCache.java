@@ -0,0 +1,66 @@
+package com.boycottpro.causes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-container cache of the follow state (sub, cause_id) was last left in by
+ * this container, so a double tap or client retry that asks for the state the
+ * edge is already in is answered without a transaction. A stale hit is not
+ * harmless: if another container flipped the edge in between, the hit answers
+ * a real toggle without writing it. Entries therefore live only for a
+ * double-tap window of a few seconds, not for as long as the user might come
+ * back.
+ */
+public class RecentFollowCache {
+
+    static final long DEFAULT_TTL_MS = TimeUnit.SECONDS.toMillis(3);
+    static final int DEFAULT_MAX_ENTRIES = 50_000;
+
+    private final BoundedCache<String, Boolean> states;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RecentFollowCache() {
+        this(DEFAULT_TTL_MS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    RecentFollowCache(long ttlMs, int maxEntries, LongSupplier clock) {
+        this.states = new BoundedCache<>(maxEntries, ttlMs, clock);
+    }
+
+    /**
+     * Returns true if the edge is known to already be in the requested state.
+     * Counts a hit or a miss.
+     */
+    public boolean isAlready(String sub, String causeId, boolean following) {
+        Boolean state = states.get(key(sub, causeId));
+        if (state != null && state == following) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    public void record(String sub, String causeId, boolean following) {
+        states.put(key(sub, causeId), following);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    private static String key(String sub, String causeId) {
+        return sub + '\u0000' + causeId;
+    }
+}
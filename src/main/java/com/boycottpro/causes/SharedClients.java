@@ -0,0 +1,33 @@
+package com.boycottpro.causes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+/**
+ * The DynamoDbClient and ObjectMapper every handler in the process shares, so
+ * that routes hosted together by CauseRouter pay for one client and one set of
+ * Jackson serializers instead of one each. Both are thread-safe once built.
+ */
+public final class SharedClients {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private SharedClients() {
+    }
+
+    public static ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * Built on first use rather than at class load, so code that only needs
+     * the ObjectMapper does not require an AWS region.
+     */
+    public static DynamoDbClient dynamoDb() {
+        return DynamoDbHolder.CLIENT;
+    }
+
+    private static final class DynamoDbHolder {
+        static final DynamoDbClient CLIENT = DynamoDbClients.create();
+    }
+}
@@ -0,0 +1,32 @@
+package com.boycottpro.causes;
+
+/**
+ * Thrown when a follower write is not sent to DynamoDB, or gives up, because
+ * DynamoDB is throttling: the cause's token bucket is exhausted, the retries
+ * for a throttled write ran out, or the circuit breaker is open. Callers
+ * answer 503 with a Retry-After header.
+ */
+public class WriteThrottledException extends RuntimeException {
+
+    private final long retryAfterMs;
+
+    public WriteThrottledException(String message, long retryAfterMs) {
+        this(message, retryAfterMs, null);
+    }
+
+    public WriteThrottledException(String message, long retryAfterMs, Throwable cause) {
+        super(message, cause);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    /**
+     * Retry-After is whole seconds, so this rounds up and never returns 0.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
@@ -0,0 +1,74 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void testEntriesExpireAfterTheTtl() {
+        AtomicLong now = new AtomicLong(1_000);
+        BoundedCache<String, Long> cache = new BoundedCache<>(10, 100, now::get);
+
+        assertNull(cache.get("a"));
+        cache.put("a", 5L);
+        now.addAndGet(99);
+        assertEquals(5L, cache.get("a"));
+        now.addAndGet(1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        BoundedCache<String, Long> cache = new BoundedCache<>(2, 60_000, () -> 0L);
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        cache.get("a");
+        cache.put("c", 3L);
+
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3L, cache.get("c"));
+    }
+
+    @Test
+    void testPutReturnsOnlyALivePreviousValue() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<String, Long> cache = new BoundedCache<>(10, 100, now::get);
+
+        assertNull(cache.put("a", 1L));
+        assertEquals(1L, cache.put("a", 2L));
+        now.set(100);
+        assertNull(cache.put("a", 3L));
+        cache.remove("a");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void testPutIfAbsentKeepsTheLiveValue() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<String, Long> cache = new BoundedCache<>(10, 100, now::get);
+
+        assertNull(cache.putIfAbsent("a", 1L));
+        assertEquals(1L, cache.putIfAbsent("a", 2L));
+        now.set(100);
+        assertNull(cache.putIfAbsent("a", 3L));
+        assertEquals(3L, cache.get("a"));
+    }
+
+    @Test
+    void testWithoutTtlEntriesOnlyLeaveByEviction() {
+        BoundedCache<String, Long> cache = new BoundedCache<>(1);
+        cache.put("a", 1L);
+
+        assertEquals(1L, cache.get("a"));
+        cache.put("b", 2L);
+        assertNull(cache.get("a"));
+        assertEquals(2L, cache.get("b"));
+    }
+}
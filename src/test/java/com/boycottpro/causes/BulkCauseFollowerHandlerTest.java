@@ -0,0 +1,147 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkCauseFollowerHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Mock
+    private Context context;
+
+    @Test
+    void testMissingCauseDoesNotFailTheRest() throws Exception {
+        BulkCauseFollowerHandler handler = new BulkCauseFollowerHandler(dynamoDb);
+        when(context.getRemainingTimeInMillis()).thenReturn(5_000);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        when(dynamoDb.transactWriteItems(argThat((TransactWriteItemsRequest r) ->
+                r != null && "missing".equals(r.transactItems().get(1).update().key().get("cause_id").s()))))
+                .thenThrow(TransactionCanceledException.builder()
+                        .message("Transaction cancelled")
+                        .cancellationReasons(CancellationReason.builder().code("None").build(),
+                                CancellationReason.builder().code("ConditionalCheckFailed").build())
+                        .build());
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(event(
+                "[{\"cause_id\":\"a\",\"increment\":true},"
+                        + "{\"cause_id\":\"missing\",\"increment\":true},"
+                        + "{\"cause_id\":\"b\",\"increment\":\"false\"},"
+                        + "{\"cause_id\":\"c\",\"increment\":\"maybe\"}]"), context);
+
+        assertEquals(200, response.getStatusCode());
+        JsonNode results = objectMapper.readTree(response.getBody());
+        assertEquals(4, results.size());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals(404, results.get(1).get("status").asInt());
+        assertEquals(200, results.get(2).get("status").asInt());
+        assertEquals(400, results.get(3).get("status").asInt());
+        verify(dynamoDb, times(3)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    void testInvalidBodies() {
+        BulkCauseFollowerHandler handler = new BulkCauseFollowerHandler(dynamoDb);
+
+        assertEquals(400, handler.handleRequest(event(null), context).getStatusCode());
+        assertEquals(400, handler.handleRequest(event("{\"cause_id\":\"a\"}"), context).getStatusCode());
+        assertEquals(400, handler.handleRequest(event("[not json"), context).getStatusCode());
+
+        StringBuilder tooMany = new StringBuilder("[");
+        for (int i = 0; i <= BulkCauseFollowerHandler.MAX_ENTRIES; i++) {
+            tooMany.append(i == 0 ? "" : ",").append("{\"cause_id\":\"c").append(i).append("\",\"increment\":true}");
+        }
+        APIGatewayProxyResponseEvent response = handler.handleRequest(event(tooMany.append("]").toString()), context);
+        assertEquals(400, response.getStatusCode());
+        assertTrue(response.getBody().contains("too many bulk entries"));
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    void testUnauthorizedUser() {
+        BulkCauseFollowerHandler handler = new BulkCauseFollowerHandler(dynamoDb);
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent(), null);
+
+        assertEquals(401, response.getStatusCode());
+    }
+
+    @Test
+    void testEveryRequestEmitsMetrics() throws Exception {
+        List<String> lines = new ArrayList<>();
+        BulkCauseFollowerHandler handler = new BulkCauseFollowerHandler(dynamoDb,
+                new FollowerMetrics(FollowerMetrics.DEFAULT_NAMESPACE, "bulk", 1, lines::add));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        handler.handleRequest(event("[{\"cause_id\":\"a\",\"increment\":true}]"), null);
+        handler.handleRequest(event(null), null);
+
+        assertEquals(2, lines.size());
+        assertEquals(1, objectMapper.readTree(lines.get(0)).get("Status2xx").asInt());
+        assertEquals(1, objectMapper.readTree(lines.get(1)).get("Status4xx").asInt());
+    }
+
+    @Test
+    void testEachEntryCountsAgainstTheRateLimit() throws Exception {
+        BulkCauseFollowerHandler handler = new BulkCauseFollowerHandler(dynamoDb, new FollowerMetrics(),
+                new FollowRateLimiter(2, 60_000, 100, dynamoDb, null, () -> 0L));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        JsonNode results = objectMapper.readTree(handler.handleRequest(event(
+                "[{\"cause_id\":\"a\",\"increment\":true},"
+                        + "{\"cause_id\":\"b\",\"increment\":\"maybe\"},"
+                        + "{\"cause_id\":\"c\",\"increment\":true},"
+                        + "{\"cause_id\":\"d\",\"increment\":true}]"), null).getBody());
+        JsonNode next = objectMapper.readTree(handler.handleRequest(event(
+                "[{\"cause_id\":\"e\",\"increment\":true}]"), null).getBody());
+
+        // invalid entries are not counted; the third toggle is over the limit
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals(400, results.get(1).get("status").asInt());
+        assertEquals(200, results.get(2).get("status").asInt());
+        assertEquals(429, results.get(3).get("status").asInt());
+        assertEquals(429, next.get(0).get("status").asInt());
+        assertTrue(next.get(0).get("message").asText().startsWith("too many follow requests"));
+        verify(dynamoDb, times(2)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    private static APIGatewayProxyRequestEvent event(String body) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", "11111111-2222-3333-4444-555555555555"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        event.setBody(body);
+        return event;
+    }
+}
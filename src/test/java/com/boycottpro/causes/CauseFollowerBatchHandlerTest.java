@@ -0,0 +1,190 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CauseFollowerBatchHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Mock
+    private Context context;
+
+    @Test
+    void testDeltasAreNettedPerCause() {
+        InMemoryDynamoDbClient memory = tables("hot-cause", "quiet-cause");
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(memory);
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            messages.add(message("m" + i, "user-" + (i % 10), "hot-cause", i % 2 == 0));
+        }
+        messages.add(message("other", "user-1", "quiet-cause", true));
+        messages.add(message("unfollow", "user-2", "quiet-cause", false));
+
+        SQSBatchResponse response = handler.handleRequest(event(messages), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        // ten users toggling ends with users 0, 2, 4, 6 and 8 following; the
+        // unfollow of a cause user-2 never followed changes nothing
+        assertEquals(5, followerCount(memory, "hot-cause"));
+        assertEquals(1, followerCount(memory, "quiet-cause"));
+        assertEquals(6, memory.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testRedeliveredBatchIsNotCountedAgain() {
+        InMemoryDynamoDbClient memory = tables("cause-1");
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(memory);
+        SQSEvent batch = event(List.of(
+                message("a", "user-a", "cause-1", true), message("b", "user-b", "cause-1", true)));
+
+        handler.handleRequest(batch, context);
+        // a redelivery lands on a different container
+        SQSBatchResponse response = new CauseFollowerBatchHandler(memory).handleRequest(batch, context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(2, followerCount(memory, "cause-1"));
+    }
+
+    @Test
+    void testZeroNetDeltaSkipsWrite() {
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(dynamoDb);
+        when(dynamoDb.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+        when(dynamoDb.deleteItem(any(DeleteItemRequest.class))).thenReturn(DeleteItemResponse.builder().build());
+
+        SQSBatchResponse response = handler.handleRequest(event(List.of(
+                message("a", "user-1", "cause-1", true), message("b", "user-1", "cause-1", false))), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verify(dynamoDb, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void testThrottledCauseReportsOnlyItsMessagesAndPutsTheEdgesBack() {
+        InMemoryDynamoDbClient memory = tables("cause-1", "cause-2");
+        DynamoDbClient throttled = spy(memory);
+        doThrow(ProvisionedThroughputExceededException.builder().message("throttled").build())
+                .doCallRealMethod()
+                .when(throttled).updateItem(any(UpdateItemRequest.class));
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(throttled);
+
+        SQSBatchResponse response = handler.handleRequest(event(List.of(
+                message("a", "user-a", "cause-1", true), message("b", "user-b", "cause-1", true),
+                message("c", "user-c", "cause-2", true))), context);
+
+        List<String> failed = response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier).toList();
+        assertEquals(List.of("a", "b"), failed);
+        assertEquals(1, memory.size(FollowLedger.LEDGER_TABLE));
+
+        // SQS redelivers the failed messages, which now count
+        assertTrue(new CauseFollowerBatchHandler(memory).handleRequest(event(List.of(
+                message("a", "user-a", "cause-1", true), message("b", "user-b", "cause-1", true))), context)
+                .getBatchItemFailures().isEmpty());
+        assertEquals(2, followerCount(memory, "cause-1"));
+    }
+
+    @Test
+    void testUnknownWriteOutcomeKeepsTheEdges() {
+        InMemoryDynamoDbClient memory = tables("cause-1");
+        DynamoDbClient failing = spy(memory);
+        doThrow(DynamoDbException.builder().message("service unavailable").statusCode(503).build())
+                .when(failing).updateItem(any(UpdateItemRequest.class));
+
+        SQSBatchResponse response = new CauseFollowerBatchHandler(failing).handleRequest(event(List.of(
+                message("a", "user-a", "cause-1", true))), context);
+
+        // a retry could not tell whether to count again, so the reconciler settles it instead
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(1, memory.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testMissingCauseAndMalformedMessagesAreDropped() {
+        InMemoryDynamoDbClient memory = tables("cause-1");
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(memory);
+        SQSEvent.SQSMessage garbage = new SQSEvent.SQSMessage();
+        garbage.setMessageId("garbage");
+        garbage.setBody("not json");
+        SQSEvent.SQSMessage noCause = new SQSEvent.SQSMessage();
+        noCause.setMessageId("no-cause");
+        noCause.setBody("{\"increment\":true,\"sub\":\"user-1\"}");
+        SQSEvent.SQSMessage noSub = new SQSEvent.SQSMessage();
+        noSub.setMessageId("no-sub");
+        noSub.setBody("{\"cause_id\":\"cause-1\",\"increment\":true}");
+
+        SQSBatchResponse response = handler.handleRequest(event(List.of(
+                garbage, noCause, noSub, message("a", "user-a", "missing", true))), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        // the edge written for the missing cause was put back
+        assertEquals(0, memory.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(0, followerCount(memory, "cause-1"));
+    }
+
+    @Test
+    void testEmptyEvent() {
+        CauseFollowerBatchHandler handler = new CauseFollowerBatchHandler(dynamoDb);
+
+        assertTrue(handler.handleRequest(new SQSEvent(), context).getBatchItemFailures().isEmpty());
+        assertTrue(handler.handleRequest(null, context).getBatchItemFailures().isEmpty());
+    }
+
+    private static SQSEvent.SQSMessage message(String id, String sub, String causeId, boolean increment) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(id);
+        message.setBody("{\"cause_id\":\"" + causeId + "\",\"increment\":" + increment
+                + ",\"sub\":\"" + sub + "\"}");
+        return message;
+    }
+
+    private static InMemoryDynamoDbClient tables(String... causeIds) {
+        InMemoryDynamoDbClient memory = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        for (String causeId : causeIds) {
+            memory.putItem(PutItemRequest.builder()
+                    .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                    .item(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                    .build());
+        }
+        return memory;
+    }
+
+    private static long followerCount(InMemoryDynamoDbClient memory, String causeId) {
+        AttributeValue count = memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS(causeId))).get("follower_count");
+        return count == null ? 0 : Long.parseLong(count.n());
+    }
+
+    private static SQSEvent event(List<SQSEvent.SQSMessage> messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(messages);
+        return event;
+    }
+}
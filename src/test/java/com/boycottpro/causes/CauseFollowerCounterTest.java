@@ -0,0 +1,183 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CauseFollowerCounterTest {
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Test
+    void testUnshardedCauseUpdatesCauseItem() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder()
+                        .attributes(Map.of("follower_count", AttributeValue.fromN("12")))
+                        .build());
+
+        assertEquals(12L, counter.applyDelta("cause-1", "user-1", 1));
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb).updateItem(captor.capture());
+        assertEquals("causes", captor.getValue().tableName());
+        assertEquals("cause-1", captor.getValue().key().get("cause_id").s());
+        assertEquals("1", captor.getValue().expressionAttributeValues().get(":delta").n());
+        assertEquals(ReturnValue.UPDATED_NEW, captor.getValue().returnValues());
+    }
+
+    @Test
+    void testShardedCauseIsDiscoveredAndCached() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        ConditionalCheckFailedException sharded = ConditionalCheckFailedException.builder()
+                .message("sharded")
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-1"),
+                        "follower_shard_count", AttributeValue.fromN("4")))
+                .build();
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(sharded)
+                .thenReturn(UpdateItemResponse.builder().build());
+
+        assertNull(counter.applyDelta("cause-1", "user-1", 1));
+        assertNull(counter.applyDelta("cause-1", "user-2", -1));
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(3)).updateItem(captor.capture());
+        List<UpdateItemRequest> requests = captor.getAllValues();
+        assertEquals("causes", requests.get(0).tableName());
+        assertEquals("cause_follower_shards", requests.get(1).tableName());
+        assertEquals("cause-1#" + CauseFollowerCounter.shardFor("user-1", 4),
+                requests.get(1).key().get("cause_id").s());
+        // second call goes straight to a shard without touching the cause item
+        assertEquals("cause_follower_shards", requests.get(2).tableName());
+        assertEquals("-1", requests.get(2).expressionAttributeValues().get(":delta").n());
+    }
+
+    @Test
+    void testMissingCauseRethrows() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("Not found").build());
+
+        assertThrows(ConditionalCheckFailedException.class,
+                () -> counter.applyDelta("missing", "user-1", 1));
+        verify(dynamoDb, times(1)).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void testReadFollowerCountAddsShards() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of("follower_count", AttributeValue.fromN("10"),
+                        "follower_shard_count", AttributeValue.fromN("2")))
+                .build());
+        when(dynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(BatchGetItemResponse.builder()
+                .responses(Map.of("cause_follower_shards", List.of(
+                        Map.of("follower_count", AttributeValue.fromN("5")),
+                        Map.of("follower_count", AttributeValue.fromN("-2")))))
+                .build());
+
+        assertEquals(13, counter.readFollowerCount("cause-1"));
+    }
+
+    @Test
+    void testReadFollowerCountUnsharded() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of("follower_count", AttributeValue.fromN("7")))
+                .build());
+
+        assertEquals(7, counter.readFollowerCount("cause-1"));
+        verify(dynamoDb, never()).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test
+    void testReadFollowerCountMissingCause() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        assertThrows(CauseNotFoundException.class, () -> counter.readFollowerCount("missing"));
+    }
+
+    @Test
+    void testEnableShardingRejectsBadCounts() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        assertThrows(IllegalArgumentException.class, () -> counter.enableSharding("cause-1", 1));
+        assertThrows(IllegalArgumentException.class, () -> counter.enableSharding("cause-1", 101));
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    void testEnableShardingRoutesLaterDeltasToShards() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().build());
+
+        counter.enableSharding("cause-1", 8);
+        counter.applyDelta("cause-1", "user-1", 1);
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(2)).updateItem(captor.capture());
+        assertEquals("8", captor.getAllValues().get(0).expressionAttributeValues().get(":n").n());
+        assertEquals("cause_follower_shards", captor.getAllValues().get(1).tableName());
+    }
+
+    @Test
+    void testDeltaExpressionRollsVelocityBuckets() {
+        long hour = 500_000;
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb, 3, 2, () -> hour * 3_600_000L);
+        long day = hour / 24;
+
+        String expression = counter.deltaExpression();
+
+        assertTrue(expression.startsWith("SET follower_count = if_not_exists(follower_count, :zero) + :delta ADD "));
+        assertTrue(expression.contains("velocity_h" + hour + " :delta"));
+        assertTrue(expression.contains("velocity_d" + day + " :delta"));
+        assertTrue(expression.endsWith("REMOVE velocity_h" + (hour - 5) + ", velocity_h" + (hour - 4)
+                + ", velocity_h" + (hour - 3) + ", velocity_d" + (day - 3) + ", velocity_d" + (day - 2)));
+        assertSame(expression, counter.deltaExpression());
+    }
+
+    @Test
+    void testCorrectionLeavesVelocityAlone() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb, 3, 2, () -> 500_000 * 3_600_000L);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder()
+                        .message("sharded")
+                        .item(Map.of("cause_id", AttributeValue.fromS("cause-1"),
+                                "follower_shard_count", AttributeValue.fromN("4")))
+                        .build())
+                .thenReturn(UpdateItemResponse.builder().build());
+
+        counter.applyCorrection("cause-1", "reconciliation", -25);
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(2)).updateItem(captor.capture());
+        for (UpdateItemRequest request : captor.getAllValues()) {
+            assertEquals("SET follower_count = if_not_exists(follower_count, :zero) + :delta",
+                    request.updateExpression());
+            assertEquals("-25", request.expressionAttributeValues().get(":delta").n());
+        }
+        assertEquals("cause_follower_shards", captor.getAllValues().get(1).tableName());
+    }
+
+    @Test
+    void testVelocityCanBeTurnedOff() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb, 0, 0, System::currentTimeMillis);
+
+        assertEquals("SET follower_count = if_not_exists(follower_count, :zero) + :delta", counter.deltaExpression());
+    }
+}
@@ -0,0 +1,49 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CauseRateLimiterTest {
+
+    @Test
+    void testUnthrottledCausesAreNotLimited() {
+        CauseRateLimiter limiter = new CauseRateLimiter(10);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(0, limiter.reserve("cause-1", 0));
+        }
+        assertEquals(0, limiter.rateOf("cause-1"));
+    }
+
+    @Test
+    void testThrottledCauseDefersThenSheds() {
+        AtomicLong now = new AtomicLong(0);
+        CauseRateLimiter limiter = new CauseRateLimiter(10, 100, now::get);
+        limiter.onThrottled("cause-1");
+
+        // 10 writes/s means one token every 100ms
+        assertEquals(100, limiter.reserve("cause-1", 150));
+        assertEquals(200, limiter.reserve("cause-1", 150));
+        now.set(200);
+        assertEquals(0, limiter.reserve("cause-1", 150));
+
+        limiter.onThrottled("cause-1");
+        assertEquals(5, limiter.rateOf("cause-1"));
+        assertEquals(0, limiter.reserve("cause-2", 0));
+    }
+
+    @Test
+    void testSuccessesLiftTheLimit() {
+        CauseRateLimiter limiter = new CauseRateLimiter(20, 100, () -> 0L);
+        limiter.onThrottled("cause-1");
+
+        for (int i = 0; i < 60 && limiter.rateOf("cause-1") > 0; i++) {
+            limiter.onSuccess("cause-1");
+        }
+
+        assertEquals(0, limiter.rateOf("cause-1"));
+    }
+}
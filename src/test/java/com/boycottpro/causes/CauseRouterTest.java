@@ -0,0 +1,197 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CauseRouterTest {
+
+    @Test
+    void testFollowRouteIsFoundByServiceLoader() {
+        CauseRouter router = new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                ServiceLoader.load(CauseRoute.class));
+
+        assertTrue(router.routeKeys().contains(IncrementCauseFollowerRoute.FOLLOW));
+        assertTrue(router.routeKeys().contains(IncrementCauseFollowerRoute.READ));
+    }
+
+    @Test
+    void testFollowIsDispatchedToTheFollowerHandler() {
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-123")))
+                .build());
+        CauseRouter router = new CauseRouter(dynamoDb, SharedClients.objectMapper(),
+                List.of(new IncrementCauseFollowerRoute()));
+        APIGatewayProxyRequestEvent event = authorizedEvent("POST", "/causes/cause-123/followers/true");
+        event.setResource("/causes/{cause_id}/followers/{increment}");
+        event.setPathParameters(Map.of("cause_id", "cause-123", "increment", "true"));
+
+        APIGatewayProxyResponseEvent response = router.handleRequest(event, null);
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(response.getBody().contains("cause record updated = true"));
+        assertEquals(1, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testPathOnlyEventGetsItsPathParameters() {
+        List<APIGatewayProxyRequestEvent> seen = new ArrayList<>();
+        CauseRouter router = new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                List.of(route(seen, "GET /causes/{cause_id}/followers", "ANY /files/{key+}")));
+
+        assertEquals(200, router.handleRequest(authorizedEvent("GET", "/causes/cause-9/followers/"), null)
+                .getStatusCode());
+        assertEquals(200, router.handleRequest(authorizedEvent("DELETE", "/files/a/b/c.json"), null)
+                .getStatusCode());
+
+        assertEquals(Map.of("cause_id", "cause-9"), seen.get(0).getPathParameters());
+        assertEquals(Map.of("key", "a/b/c.json"), seen.get(1).getPathParameters());
+    }
+
+    @Test
+    void testUnknownRouteIs404() {
+        CauseRouter router = new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                List.of(route(new ArrayList<>(), "GET /causes/{cause_id}/followers")));
+
+        APIGatewayProxyResponseEvent unknownResource = router.handleRequest(withResource("GET", "/causes"), null);
+        APIGatewayProxyResponseEvent unknownPath = router.handleRequest(
+                authorizedEvent("GET", "/causes/cause-9/followers/extra"), null);
+
+        assertEquals(404, unknownResource.getStatusCode());
+        assertEquals(CauseRouter.NOT_FOUND_BODY, unknownResource.getBody());
+        assertEquals(404, unknownPath.getStatusCode());
+    }
+
+    @Test
+    void testWrongMethodIs405WithAllow() {
+        CauseRouter router = new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                List.of(route(new ArrayList<>(), "GET /causes/{cause_id}/followers",
+                        "PUT /causes/{cause_id}/followers")));
+
+        APIGatewayProxyResponseEvent response = router.handleRequest(
+                withResource("POST", "/causes/{cause_id}/followers"), null);
+
+        assertEquals(405, response.getStatusCode());
+        assertEquals("GET, PUT", response.getHeaders().get("Allow"));
+        assertEquals(CauseRouter.METHOD_NOT_ALLOWED_BODY, response.getBody());
+    }
+
+    @Test
+    void testHandlersAreBuiltOnceWithTheSharedClients() {
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient();
+        ObjectMapper objectMapper = SharedClients.objectMapper();
+        List<Object> created = new ArrayList<>();
+        CauseRoute plugin = new CauseRoute() {
+            @Override
+            public List<String> routeKeys() {
+                return List.of("GET /a", "POST /a", "GET /b");
+            }
+
+            @Override
+            public RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> create(
+                    DynamoDbClient client, ObjectMapper mapper) {
+                created.add(client);
+                created.add(mapper);
+                return (event, context) -> new APIGatewayProxyResponseEvent().withStatusCode(204);
+            }
+        };
+
+        CauseRouter router = new CauseRouter(dynamoDb, objectMapper, List.of(plugin));
+
+        assertEquals(List.of(dynamoDb, objectMapper), created);
+        assertEquals(List.of("GET /a", "POST /a", "GET /b"), router.routeKeys());
+        assertEquals(204, router.handleRequest(withResource("POST", "/a"), null).getStatusCode());
+    }
+
+    @Test
+    void testHandlerServingSeveralRoutesIsRegisteredForSnapStartOnce() {
+        CauseRouter router = new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                List.of(new IncrementCauseFollowerRoute()));
+
+        assertEquals(2, router.routeKeys().size());
+        assertEquals(1, router.resources().size());
+    }
+
+    @Test
+    void testFollowerRouteUsesTheSharedObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        IncrementCauseFollowerHandler handler = (IncrementCauseFollowerHandler) new IncrementCauseFollowerRoute()
+                .create(new InMemoryDynamoDbClient(), objectMapper);
+
+        assertSame(objectMapper, handler.objectMapper());
+    }
+
+    @Test
+    void testDuplicateRouteIsRejected() {
+        List<CauseRoute> plugins = List.of(route(new ArrayList<>(), "GET /a"), route(new ArrayList<>(), "get /a"));
+
+        assertThrows(IllegalStateException.class,
+                () -> new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(), plugins));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CauseRouter(new InMemoryDynamoDbClient(), SharedClients.objectMapper(),
+                        List.of(route(new ArrayList<>(), "/a"))));
+    }
+
+    @Test
+    void testRouteTemplateMatching() {
+        CauseRouter.RouteTemplate template = new CauseRouter.RouteTemplate("/causes/{cause_id}/followers");
+
+        assertEquals(Map.of("cause_id", "x"), template.match(CauseRouter.RouteTemplate.split("/causes/x/followers")));
+        assertNull(template.match(CauseRouter.RouteTemplate.split("/causes/x")));
+        assertNull(template.match(CauseRouter.RouteTemplate.split("/brands/x/followers")));
+    }
+
+    private static CauseRoute route(List<APIGatewayProxyRequestEvent> seen, String... routeKeys) {
+        return new CauseRoute() {
+            @Override
+            public List<String> routeKeys() {
+                return List.of(routeKeys);
+            }
+
+            @Override
+            public RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> create(
+                    DynamoDbClient dynamoDb, ObjectMapper objectMapper) {
+                return (event, context) -> {
+                    seen.add(event);
+                    return new APIGatewayProxyResponseEvent().withStatusCode(200);
+                };
+            }
+        };
+    }
+
+    private static APIGatewayProxyRequestEvent withResource(String method, String resource) {
+        APIGatewayProxyRequestEvent event = authorizedEvent(method, resource);
+        event.setResource(resource);
+        return event;
+    }
+
+    private static APIGatewayProxyRequestEvent authorizedEvent(String method, String path) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", "11111111-2222-3333-4444-555555555555"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        event.setHttpMethod(method);
+        event.setPath(path);
+        return event;
+    }
+}
@@ -0,0 +1,64 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void testOpensAfterConsecutiveThrottles() {
+        AtomicLong now = new AtomicLong(1_000);
+        CircuitBreaker breaker = new CircuitBreaker(3, 5_000, now::get);
+
+        breaker.onThrottled();
+        breaker.onThrottled();
+        breaker.onSuccess();
+        breaker.onThrottled();
+        breaker.onThrottled();
+        assertEquals(0, breaker.retryAfterMs());
+
+        breaker.onThrottled();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        now.addAndGet(1_000);
+        assertEquals(4_000, breaker.retryAfterMs());
+    }
+
+    @Test
+    void testHalfOpenLetsOneProbeThrough() {
+        AtomicLong now = new AtomicLong(0);
+        CircuitBreaker breaker = new CircuitBreaker(1, 100, now::get);
+        breaker.onThrottled();
+
+        now.set(100);
+        assertEquals(0, breaker.retryAfterMs());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.retryAfterMs() > 0);
+
+        // a throttled probe reopens the breaker for another full period
+        breaker.onThrottled();
+        assertEquals(100, breaker.retryAfterMs());
+
+        now.set(200);
+        assertEquals(0, breaker.retryAfterMs());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.retryAfterMs());
+    }
+
+    @Test
+    void testAbandonedProbeLetsTheNextWriteProbe() {
+        AtomicLong now = new AtomicLong(0);
+        CircuitBreaker breaker = new CircuitBreaker(1, 100, now::get);
+        breaker.onThrottled();
+        now.set(100);
+        assertEquals(0, breaker.retryAfterMs());
+
+        breaker.onAbandoned();
+
+        assertEquals(0, breaker.retryAfterMs());
+        assertTrue(breaker.retryAfterMs() > 0);
+    }
+}
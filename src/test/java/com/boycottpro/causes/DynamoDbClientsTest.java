@@ -0,0 +1,43 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.InternalServerErrorException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDbClientsTest {
+
+    @Test
+    void testServerErrorsAndIoErrorsAreRetried() {
+        assertTrue(DynamoDbClients.isTransient(InternalServerErrorException.builder().statusCode(500).build()));
+        assertTrue(DynamoDbClients.isTransient(DynamoDbException.builder().statusCode(503).build()));
+        assertTrue(DynamoDbClients.isTransient(SdkClientException.builder()
+                .cause(new IOException("connection reset")).build()));
+    }
+
+    @Test
+    void testThrottlesAreLeftToFollowWritePolicy() {
+        assertFalse(DynamoDbClients.isTransient(ProvisionedThroughputExceededException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ProvisionedThroughputExceededException").build())
+                .build()));
+        assertFalse(DynamoDbClients.isTransient(DynamoDbException.builder()
+                .statusCode(503)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ThrottlingException").build())
+                .build()));
+        assertFalse(DynamoDbClients.isTransient(TransactionCanceledException.builder().statusCode(400).build()));
+    }
+
+    @Test
+    void testClientMistakesAreNotRetried() {
+        assertFalse(DynamoDbClients.isTransient(DynamoDbException.builder().statusCode(400).build()));
+        assertFalse(DynamoDbClients.isTransient(SdkClientException.create("bad configuration")));
+    }
+}
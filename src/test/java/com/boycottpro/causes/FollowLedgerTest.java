@@ -0,0 +1,224 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FollowLedgerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Test
+    void testFollowWritesEdgeAndCounterTogether() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDb, times(1)).transactWriteItems(captor.capture());
+        List<TransactWriteItem> items = captor.getValue().transactItems();
+        assertEquals(FollowLedger.LEDGER_TABLE, items.get(0).put().tableName());
+        assertEquals("user-1", items.get(0).put().item().get("user_id").s());
+        assertEquals("attribute_not_exists(cause_id)", items.get(0).put().conditionExpression());
+        assertEquals(CauseFollowerCounter.CAUSES_TABLE, items.get(1).update().tableName());
+        assertEquals("1", items.get(1).update().expressionAttributeValues().get(":delta").n());
+    }
+
+    @Test
+    void testUnfollowDeletesEdgeOnlyIfPresent() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+
+        TransactWriteItemsRequest request = ledger.followRequest("cause-1", "user-1", false);
+
+        Delete delete = request.transactItems().get(0).delete();
+        assertEquals(FollowLedger.LEDGER_TABLE, delete.tableName());
+        assertEquals("attribute_exists(cause_id)", delete.conditionExpression());
+        assertEquals("-1", request.transactItems().get(1).update().expressionAttributeValues().get(":delta").n());
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    void testEdgeConditionFailureIsANoOp() {
+        FollowLedger ledger = legacyLedger(dynamoDb);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled(reason("ConditionalCheckFailed", null), reason("None", null)));
+
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-1", false));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-1", false));
+        // the unfollow, then its legacy_followers fallback, which fails its conditions too
+        verify(dynamoDb, times(2)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    void testMissingCauseThrows() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled(reason("None", null), reason("ConditionalCheckFailed", null)));
+
+        assertThrows(CauseNotFoundException.class, () -> ledger.setFollowing("missing", "user-1", true));
+        assertEquals(0, ledger.recentFollows().size());
+    }
+
+    @Test
+    void testShardedCauseIsRetriedAgainstAShard() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled(reason("None", null), reason("ConditionalCheckFailed",
+                        Map.of("cause_id", AttributeValue.fromS("cause-1"),
+                                "follower_shard_count", AttributeValue.fromN("4")))))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDb, times(2)).transactWriteItems(captor.capture());
+        Update retried = captor.getAllValues().get(1).transactItems().get(1).update();
+        assertEquals(CauseFollowerCounter.SHARD_TABLE, retried.tableName());
+        assertEquals("cause-1#" + CauseFollowerCounter.shardFor("user-1", 4), retried.key().get("cause_id").s());
+        assertNull(retried.conditionExpression());
+    }
+
+    @Test
+    void testOtherCancellationsPropagate() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        TransactionCanceledException conflict = cancelled(reason("TransactionConflict", null), reason("None", null));
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class))).thenThrow(conflict);
+
+        assertSame(conflict, assertThrows(TransactionCanceledException.class,
+                () -> ledger.setFollowing("cause-1", "user-1", true)));
+    }
+
+    @Test
+    void testSetEdgeWritesOnlyTheEdge() {
+        InMemoryDynamoDbClient memory = legacyTables(0);
+        FollowLedger ledger = new FollowLedger(memory, new CauseFollowerCounter(memory), new RecentFollowCache());
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setEdge("cause-1", "user-1", true));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setEdge("cause-1", "user-1", true));
+        assertEquals(1, memory.size(FollowLedger.LEDGER_TABLE));
+
+        // another container already removed the edge
+        FollowLedger other = new FollowLedger(memory, new CauseFollowerCounter(memory), new RecentFollowCache());
+        assertEquals(FollowLedger.Outcome.APPLIED, other.setEdge("cause-1", "user-1", false));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED,
+                new FollowLedger(memory, new CauseFollowerCounter(memory)).setEdge("cause-1", "user-1", false));
+        assertEquals(0, memory.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testRevertEdgeLetsTheRequestApplyAgain() {
+        InMemoryDynamoDbClient memory = new InMemoryDynamoDbClient()
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        FollowLedger ledger = new FollowLedger(memory, new CauseFollowerCounter(memory));
+
+        ledger.setEdge("cause-1", "user-1", true);
+        ledger.revertEdge("cause-1", "user-1", true);
+
+        assertEquals(0, memory.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setEdge("cause-1", "user-1", true));
+    }
+
+    @Test
+    void testUnfollowOfALegacyFollowLowersTheCountOnce() {
+        InMemoryDynamoDbClient memory = legacyTables(2);
+        FollowLedger ledger = legacyLedger(memory);
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", false));
+        // a retry from another container misses the recent-follow cache and hits the tombstone
+        FollowLedger other = legacyLedger(memory);
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, other.setFollowing("cause-1", "user-1", false));
+
+        Map<String, AttributeValue> cause = memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS("cause-1")));
+        assertEquals("4", cause.get("follower_count").n());
+        assertEquals("1", cause.get(CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR).n());
+    }
+
+    @Test
+    void testUnfollowWithoutEdgeIsANoOpOnceLegacyFollowersAreUsedUp() {
+        InMemoryDynamoDbClient memory = legacyTables(1);
+        FollowLedger ledger = legacyLedger(memory);
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", false));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-2", false));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setEdge("cause-1", "user-3", false));
+
+        assertEquals("4", memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS("cause-1"))).get("follower_count").n());
+    }
+
+    @Test
+    void testSetEdgeReportsALegacyUnfollow() {
+        InMemoryDynamoDbClient memory = legacyTables(1);
+        FollowLedger ledger = legacyLedger(memory);
+
+        assertEquals(FollowLedger.Outcome.LEGACY_UNFOLLOWED, ledger.setEdge("cause-1", "user-1", false));
+        assertEquals("4", memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS("cause-1"))).get("follower_count").n());
+    }
+
+    @Test
+    void testLegacyUnfollowIsOffByDefaultAndAfterTheCutoff() {
+        InMemoryDynamoDbClient memory = legacyTables(2);
+        FollowLedger unset = new FollowLedger(memory, new CauseFollowerCounter(memory));
+        FollowLedger expired = new FollowLedger(memory, new CauseFollowerCounter(memory), new RecentFollowCache(),
+                1_000, () -> 1_000L);
+
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, unset.setFollowing("cause-1", "user-1", false));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, expired.setEdge("cause-1", "user-2", false));
+
+        Map<String, AttributeValue> cause = memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS("cause-1")));
+        assertEquals("5", cause.get("follower_count").n());
+        assertEquals("2", cause.get(CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR).n());
+        assertEquals(0, memory.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    // a ledger whose legacy_followers fallback never expires
+    private static FollowLedger legacyLedger(DynamoDbClient dynamoDb) {
+        return new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb), new RecentFollowCache(),
+                Long.MAX_VALUE, System::currentTimeMillis);
+    }
+
+    // cause-1 with 5 followers, the given number of them from before the ledger
+    private static InMemoryDynamoDbClient legacyTables(int legacyFollowers) {
+        InMemoryDynamoDbClient memory = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        memory.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-1"),
+                        "follower_count", AttributeValue.fromN("5"),
+                        CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR, AttributeValue.fromN(Integer.toString(legacyFollowers))))
+                .build());
+        return memory;
+    }
+
+    private static CancellationReason reason(String code, Map<String, AttributeValue> item) {
+        return CancellationReason.builder().code(code).item(item).build();
+    }
+
+    private static TransactionCanceledException cancelled(CancellationReason edge, CancellationReason counter) {
+        return TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(edge, counter)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FollowRateLimiterTest {
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Test
+    void testLimitWithinWindow() {
+        AtomicLong now = new AtomicLong(0);
+        FollowRateLimiter limiter = new FollowRateLimiter(3, 1_000, 100, null, null, now::get);
+
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+        now.set(400);
+        assertEquals(600, limiter.retryAfterMs("user-1"));
+        assertEquals(0, limiter.retryAfterMs("user-2"));
+    }
+
+    @Test
+    void testPreviousWindowDecays() {
+        AtomicLong now = new AtomicLong(0);
+        FollowRateLimiter limiter = new FollowRateLimiter(4, 1_000, 100, null, null, now::get);
+        for (int i = 0; i < 4; i++) {
+            limiter.retryAfterMs("user-1");
+        }
+
+        // a quarter into the next window, 3 of the previous 4 still count
+        now.set(1_250);
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+        long wait = limiter.retryAfterMs("user-1");
+        assertEquals(250, wait);
+        now.addAndGet(wait);
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+
+        // two windows later nothing carries over
+        now.set(3_000);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, limiter.retryAfterMs("user-1"));
+        }
+    }
+
+    @Test
+    void testConcurrentCallersNeverExceedTheLimit() throws Exception {
+        FollowRateLimiter limiter = new FollowRateLimiter(100, 60_000, 100, null, null, () -> 0L);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.retryAfterMs("user-1") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void testIdleSubsAreSweptWhenFull() {
+        AtomicLong now = new AtomicLong(0);
+        FollowRateLimiter limiter = new FollowRateLimiter(5, 1_000, 2, null, null, now::get);
+        limiter.retryAfterMs("user-1");
+        limiter.retryAfterMs("user-2");
+
+        now.set(2_000);
+        limiter.retryAfterMs("user-3");
+
+        assertEquals(1, limiter.trackedSubs());
+    }
+
+    @Test
+    void testSharedWindowRejectsAcrossInstances() {
+        FollowRateLimiter limiter = new FollowRateLimiter(5, 60_000, 100, dynamoDb, "follow_rate_limits", () -> 61_000L);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(UpdateItemResponse.builder().build())
+                .thenThrow(ConditionalCheckFailedException.builder().message("over limit").build());
+
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+        assertEquals(59_000, limiter.retryAfterMs("user-1"));
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDb, times(2)).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertEquals("follow_rate_limits", request.tableName());
+        assertEquals("user-1#1", request.key().get("limit_key").s());
+        assertEquals("5", request.expressionAttributeValues().get(":limit").n());
+        assertEquals("180", request.expressionAttributeValues().get(":expires").n());
+    }
+
+    @Test
+    void testSharedWindowFailsOpen() {
+        FollowRateLimiter limiter = new FollowRateLimiter(5, 60_000, 100, dynamoDb, "follow_rate_limits", () -> 0L);
+        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(DynamoDbException.builder().message("unavailable").build());
+
+        assertEquals(0, limiter.retryAfterMs("user-1"));
+    }
+
+    @Test
+    void testSharedWindowAgainstInMemoryTable() {
+        InMemoryDynamoDbClient table = new InMemoryDynamoDbClient().createTable("follow_rate_limits", "limit_key");
+        FollowRateLimiter first = new FollowRateLimiter(3, 60_000, 100, table, "follow_rate_limits", () -> 0L);
+        FollowRateLimiter second = new FollowRateLimiter(3, 60_000, 100, table, "follow_rate_limits", () -> 0L);
+
+        assertEquals(0, first.retryAfterMs("user-1"));
+        assertEquals(0, second.retryAfterMs("user-1"));
+        assertEquals(0, first.retryAfterMs("user-1"));
+        assertTrue(second.retryAfterMs("user-1") > 0);
+        assertEquals("3", table.item("follow_rate_limits",
+                Map.of("limit_key", AttributeValue.fromS("user-1#0"))).get("hits").n());
+    }
+
+    @Test
+    void testZeroLimitDisables() {
+        FollowRateLimiter limiter = new FollowRateLimiter(0, 1_000, 100, dynamoDb, "follow_rate_limits", () -> 0L);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.retryAfterMs("user-1"));
+        }
+        verifyNoInteractions(dynamoDb);
+    }
+}
@@ -0,0 +1,52 @@
+package com.boycottpro.causes;
+
+import com.boycottpro.models.ResponseMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowRequestTemplateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testUnitDeltasShareTheirValues() {
+        assertSame(FollowRequestTemplate.deltaValues(1), FollowRequestTemplate.deltaValues(1));
+        assertSame(FollowRequestTemplate.deltaValues(-1), FollowRequestTemplate.deltaValues(-1));
+        assertEquals("1", FollowRequestTemplate.deltaValues(1).get(":delta").n());
+        assertEquals("-1", FollowRequestTemplate.deltaValues(-1).get(":delta").n());
+        assertEquals("0", FollowRequestTemplate.deltaValues(-1).get(":zero").n());
+
+        Map<String, AttributeValue> batch = FollowRequestTemplate.deltaValues(17);
+        assertEquals("17", batch.get(":delta").n());
+        assertEquals("0", batch.get(":zero").n());
+    }
+
+    @Test
+    void testFixedBodiesMatchTheSerializedMessages() throws Exception {
+        assertEquals(objectMapper.writeValueAsString(Map.of("message", "Unauthorized")),
+                FollowRequestTemplate.UNAUTHORIZED_BODY);
+        assertEquals(objectMapper.writeValueAsString(new ResponseMessage(400,
+                        "increment not acceptable value", "Expected true/false")),
+                FollowRequestTemplate.BAD_INCREMENT_BODY);
+        assertEquals(objectMapper.writeValueAsString(new ResponseMessage(404,
+                        "cause not found", "Unknown cause_id")),
+                FollowRequestTemplate.NOT_FOUND_BODY);
+    }
+
+    @Test
+    void testFollowerCountBody() throws Exception {
+        JsonNode updated = objectMapper.readTree(
+                FollowRequestTemplate.followerCountBody("cause-\"1\"", 42L, "cause record updated = true"));
+        assertEquals("cause record updated = true", updated.get("message").asText());
+        assertEquals("cause-\"1\"", updated.get("cause_id").asText());
+        assertEquals(42, updated.get("follower_count").asLong());
+
+        assertEquals("{\"cause_id\":\"cause-1\"}", FollowRequestTemplate.followerCountBody("cause-1", null, null));
+    }
+}
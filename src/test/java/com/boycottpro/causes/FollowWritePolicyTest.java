@@ -0,0 +1,213 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowWritePolicyTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final List<Long> sleeps = new ArrayList<>();
+    private final FollowerMetrics metrics = new FollowerMetrics("Test/Ns", "fn", 1, line -> { });
+
+    @Test
+    void testThrottledWriteIsRetriedWithJitteredBackoff() {
+        FollowWritePolicy policy = policy(settings(3, 20), 0.5);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute("cause-1", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw throttled();
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        // full jitter at 0.5 of the ceiling: 25ms then 50ms ceilings
+        assertEquals(List.of(13L, 25L), sleeps);
+        assertEquals(CircuitBreaker.State.CLOSED, policy.breaker().state());
+    }
+
+    @Test
+    void testBackoffIsCapped() {
+        FollowWritePolicy policy = policy(settings(10, 20), 1.0);
+
+        assertEquals(26, policy.backoffMs(1));
+        assertEquals(1_001, policy.backoffMs(10));
+        assertEquals(0, policy(settings(10, 20), 0.0).backoffMs(10));
+    }
+
+    @Test
+    void testGivingUpThrowsWriteThrottledException() {
+        FollowWritePolicy policy = policy(settings(2, 20), 0.0);
+        DynamoDbException throttle = throttled();
+
+        WriteThrottledException e = assertThrows(WriteThrottledException.class,
+                () -> policy.execute("cause-1", () -> {
+                    throw throttle;
+                }));
+
+        assertSame(throttle, e.getCause());
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertTrue(policy.causeLimiter().rateOf("cause-1") > 0);
+    }
+
+    @Test
+    void testRetryBudgetIsShared() {
+        FollowWritePolicy policy = policy(settings(5, 2), 0.0);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(WriteThrottledException.class, () -> policy.execute("cause-" + calls.get(), () -> {
+                calls.incrementAndGet();
+                throw throttled();
+            }));
+        }
+
+        // the first write spent both retries, so the second gets a single attempt
+        assertEquals(4, calls.get());
+        assertEquals(0, policy.remainingRetryBudget());
+    }
+
+    @Test
+    void testOpenBreakerShedsWithoutWriting() {
+        FollowWritePolicy policy = policy(new FollowWritePolicy.Settings(1, 25, 1_000, 0, 50, 200, 2, 5_000), 0.0);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(WriteThrottledException.class, () -> policy.execute("cause-" + now.incrementAndGet(), () -> {
+                throw throttled();
+            }));
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        WriteThrottledException e = assertThrows(WriteThrottledException.class,
+                () -> policy.execute("other-cause", calls::incrementAndGet));
+
+        assertEquals(0, calls.get());
+        assertEquals(5, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testInterruptedProbeFreesTheHalfOpenBreaker() {
+        FollowWritePolicy.Settings settings = new FollowWritePolicy.Settings(3, 25, 1_000, 10, 50, 200, 1, 5_000);
+        AtomicBoolean interrupt = new AtomicBoolean();
+        FollowWritePolicy policy = new FollowWritePolicy(settings, metrics, now::get, ms -> {
+            if (interrupt.get()) {
+                throw new InterruptedException();
+            }
+        }, () -> 0.5);
+        assertThrows(WriteThrottledException.class, () -> policy.execute("cause-1", () -> {
+            throw throttled();
+        }));
+        assertEquals(CircuitBreaker.State.OPEN, policy.breaker().state());
+
+        // the probe is interrupted backing off after its first throttle, e.g. by a cancelled bulk entry
+        now.set(5_000);
+        interrupt.set(true);
+        assertThrows(WriteThrottledException.class, () -> policy.execute("cause-2", () -> {
+            throw throttled();
+        }));
+        assertTrue(Thread.interrupted());
+
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1, policy.execute("cause-3", calls::incrementAndGet));
+        assertEquals(CircuitBreaker.State.CLOSED, policy.breaker().state());
+    }
+
+    @Test
+    void testConflictedTransactionIsRetried() {
+        InMemoryDynamoDbClient dynamoDb = followTables().withTransactionConflicts(2);
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        FollowWritePolicy policy = policy(settings(3, 20), 0.5);
+
+        assertEquals(FollowLedger.Outcome.APPLIED,
+                policy.execute("cause-1", () -> ledger.setFollowing("cause-1", "user-1", true)));
+
+        assertEquals(List.of(13L, 25L), sleeps);
+        assertEquals(1, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(0.0, policy.causeLimiter().rateOf("cause-1"));
+    }
+
+    @Test
+    void testConflictsThatOutlastTheRetriesAre503NotBreakerTrips() {
+        InMemoryDynamoDbClient dynamoDb = followTables().withTransactionConflicts(3);
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        FollowWritePolicy policy = policy(new FollowWritePolicy.Settings(2, 25, 1_000, 10, 50, 200, 1, 5_000), 0.0);
+
+        WriteThrottledException e = assertThrows(WriteThrottledException.class,
+                () -> policy.execute("cause-1", () -> ledger.setFollowing("cause-1", "user-1", true)));
+
+        assertTrue(FollowWritePolicy.isConflict((DynamoDbException) e.getCause()));
+        assertEquals(0, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(CircuitBreaker.State.CLOSED, policy.breaker().state());
+    }
+
+    @Test
+    void testNonThrottleFailuresPassThrough() {
+        FollowWritePolicy policy = policy(settings(3, 20), 0.0);
+
+        assertThrows(CauseNotFoundException.class, () -> policy.execute("cause-1", () -> {
+            throw new CauseNotFoundException("cause-1");
+        }));
+        DynamoDbException other = DynamoDbException.builder().message("ValidationException").statusCode(400).build();
+        assertSame(other, assertThrows(DynamoDbException.class, () -> policy.execute("cause-1", () -> {
+            throw other;
+        })));
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void testIsThrottle() {
+        assertTrue(FollowWritePolicy.isThrottle(throttled()));
+        assertTrue(FollowWritePolicy.isThrottle(TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("ThrottlingError").build())
+                .build()));
+        assertFalse(FollowWritePolicy.isThrottle(TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(CancellationReason.builder().code("ConditionalCheckFailed").build())
+                .build()));
+        assertFalse(FollowWritePolicy.isThrottle(TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(CancellationReason.builder().code("TransactionConflict").build())
+                .build()));
+    }
+
+    private static InMemoryDynamoDbClient followTables() {
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-1")))
+                .build());
+        return dynamoDb;
+    }
+
+    private FollowWritePolicy policy(FollowWritePolicy.Settings settings, double random) {
+        return new FollowWritePolicy(settings, metrics, now::get, sleeps::add, () -> random);
+    }
+
+    private static FollowWritePolicy.Settings settings(int maxAttempts, int retryBudget) {
+        return new FollowWritePolicy.Settings(maxAttempts, 25, 1_000, retryBudget, 50, 200, 5, 5_000);
+    }
+
+    private static DynamoDbException throttled() {
+        return ProvisionedThroughputExceededException.builder().message("throttled").build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowerDeltaBufferTest {
+
+    @Test
+    void testDisabledByDefault() {
+        assertFalse(new FollowerDeltaBuffer((causeId, shardKey, delta) -> null, 0, 50, 0).enabled());
+        assertTrue(new FollowerDeltaBuffer((causeId, shardKey, delta) -> null, 5, 50, 0).enabled());
+    }
+
+    @Test
+    void testConcurrentCallersShareOneWrite() throws Exception {
+        int callers = 8;
+        AtomicLong total = new AtomicLong();
+        AtomicInteger writes = new AtomicInteger();
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer((causeId, shardKey, delta) -> {
+            writes.incrementAndGet();
+            return total.addAndGet(delta);
+        }, 10_000, callers, 0);
+
+        List<Long> results = runConcurrently(callers, i -> buffer.add("cause-1", "user-" + i, 1, Long.MAX_VALUE));
+
+        // the batch filled up long before the wait ran out
+        assertEquals(1, writes.get());
+        assertEquals(callers, total.get());
+        for (Long result : results) {
+            assertEquals(callers, result);
+        }
+        assertEquals(1, buffer.flushes());
+        assertEquals(callers - 1, buffer.coalesced());
+    }
+
+    @Test
+    void testLoneCallerFlushesAfterMaxWait() {
+        AtomicLong total = new AtomicLong(41);
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer(
+                (causeId, shardKey, delta) -> total.addAndGet(delta), 20, 50, 0);
+
+        long start = System.nanoTime();
+        assertEquals(42L, buffer.add("cause-1", "user-1", 1, Long.MAX_VALUE));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 15);
+        assertEquals(1, buffer.flushes());
+    }
+
+    @Test
+    void testNoWaitWhenInvocationIsAboutToTimeOut() {
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer(
+                (causeId, shardKey, delta) -> 1L, 60_000, 50, 250);
+
+        long start = System.nanoTime();
+        assertEquals(1L, buffer.add("cause-1", "user-1", 1, 200));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    }
+
+    @Test
+    void testOffsettingDeltasSkipTheWrite() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer((causeId, shardKey, delta) -> {
+            writes.incrementAndGet();
+            return 0L;
+        }, 10_000, 2, 0);
+
+        List<Long> results = runConcurrently(2, i -> buffer.add("cause-1", "user-" + i, (i == 0) ? 1 : -1,
+                Long.MAX_VALUE));
+
+        assertEquals(0, writes.get());
+        assertNull(results.get(0));
+        assertNull(results.get(1));
+        assertEquals(2, buffer.coalesced());
+    }
+
+    @Test
+    void testWriteFailureReachesEveryCaller() throws Exception {
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer((causeId, shardKey, delta) -> {
+            throw new CauseNotFoundException(causeId);
+        }, 10_000, 3, 0);
+
+        List<Long> results = runConcurrently(3, i -> {
+            try {
+                buffer.add("missing", "user-" + i, 1, Long.MAX_VALUE);
+                return 0L;
+            } catch (CauseNotFoundException e) {
+                return -1L;
+            }
+        });
+
+        assertEquals(List.of(-1L, -1L, -1L), results);
+    }
+
+    @Test
+    void testCausesAreBatchedSeparately() throws Exception {
+        List<String> written = new ArrayList<>();
+        FollowerDeltaBuffer buffer = new FollowerDeltaBuffer((causeId, shardKey, delta) -> {
+            synchronized (written) {
+                written.add(causeId + "=" + delta);
+            }
+            return (long) delta;
+        }, 10_000, 2, 0);
+
+        runConcurrently(4, i -> buffer.add("cause-" + (i % 2), "user-" + i, 1, Long.MAX_VALUE));
+
+        assertEquals(2, written.size());
+        assertTrue(written.contains("cause-0=2"));
+        assertTrue(written.contains("cause-1=2"));
+    }
+
+    private interface Call {
+        Long run(int index) throws Exception;
+    }
+
+    private static List<Long> runConcurrently(int callers, Call call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.run(index);
+                }));
+            }
+            start.countDown();
+            List<Long> results = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
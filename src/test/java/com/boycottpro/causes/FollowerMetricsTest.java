@@ -0,0 +1,71 @@
+package com.boycottpro.causes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowerMetricsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOneLinePerInvocation() throws Exception {
+        List<String> lines = new ArrayList<>();
+        FollowerMetrics metrics = new FollowerMetrics("Test/Ns", "fn", 1, lines::add);
+
+        FollowerMetrics.Timer timer = metrics.start();
+        timer.lap(FollowerMetrics.Phase.JWT);
+        timer.lap(FollowerMetrics.Phase.VALIDATION);
+        metrics.count(FollowerMetrics.Counter.THROTTLES);
+        timer.failed();
+        metrics.finish(timer, 500, 1.0);
+
+        assertEquals(1, lines.size());
+        JsonNode line = objectMapper.readTree(lines.get(0));
+        JsonNode directive = line.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals("Test/Ns", directive.get("Namespace").asText());
+        assertEquals("fn", line.get("FunctionName").asText());
+        assertTrue(line.has("UpdateItemLatency"));
+        assertEquals(1, line.get("Throttles").asLong());
+        assertEquals(1, line.get("Status5xx").asLong());
+        assertEquals(1.0, line.get("ConsumedWriteCapacity").asDouble());
+        assertEquals("UPDATE_ITEM", line.get("FailedPhase").asText());
+        for (JsonNode metric : directive.get("Metrics")) {
+            assertTrue(line.has(metric.get("Name").asText()), metric.get("Name").asText());
+        }
+    }
+
+    @Test
+    void testAggregatedFlushCarriesPercentilesAndResets() throws Exception {
+        List<String> lines = new ArrayList<>();
+        FollowerMetrics metrics = new FollowerMetrics("Test/Ns", "fn", 3, lines::add);
+
+        for (int i = 0; i < 6; i++) {
+            FollowerMetrics.Timer timer = metrics.start();
+            timer.lap(FollowerMetrics.Phase.JWT);
+            metrics.finish(timer, 200, 0.5);
+        }
+
+        assertEquals(2, lines.size());
+        JsonNode line = objectMapper.readTree(lines.get(1));
+        assertEquals(3, line.get("Invocations").asLong());
+        assertEquals(3, line.get("Status2xx").asLong());
+        assertEquals(1.5, line.get("ConsumedWriteCapacity").asDouble());
+        assertTrue(line.get("UpdateItemLatencyP99").asLong() >= line.get("UpdateItemLatencyP50").asLong());
+        assertFalse(line.has("FailedPhase"));
+    }
+
+    @Test
+    void testBucketOf() {
+        assertEquals(0, FollowerMetrics.bucketOf(0));
+        assertEquals(0, FollowerMetrics.bucketOf(1));
+        assertEquals(1, FollowerMetrics.bucketOf(2));
+        assertEquals(10, FollowerMetrics.bucketOf(1024));
+        assertEquals(23, FollowerMetrics.bucketOf(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,244 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FollowerReconciliationHandlerTest {
+
+    private static final long INTERVAL = 1_000;
+    private static final String STREAM_ARN =
+            "arn:aws:dynamodb:us-east-1:123456789012:table/user_follows/stream/2024-01-01T00:00:00.000";
+
+    private final AtomicLong now = new AtomicLong(10_000);
+    private InMemoryDynamoDbClient dynamoDb;
+    private FollowerReconciliationHandler handler;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowerReconciliationHandler.TALLY_TABLE, "cause_id");
+        handler = new FollowerReconciliationHandler(dynamoDb, 10, INTERVAL, now::get);
+    }
+
+    @Test
+    void testTalliesNetEdgesPerCause() {
+        StreamsEventResponse response = handler.handleRequest(event(
+                record("INSERT", "cause-a"), record("INSERT", "cause-a"), record("INSERT", "cause-a"),
+                record("REMOVE", "cause-a"), record("INSERT", "cause-b"), record("MODIFY", "cause-b")), null);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(2, tally("cause-a", "stream_delta"));
+        assertEquals(1, tally("cause-b", "stream_delta"));
+    }
+
+    @Test
+    void testLegacyUnfollowTombstoneCountsAsAnUnfollow() {
+        DynamodbEvent.DynamodbStreamRecord tombstone = record("INSERT", "cause-a");
+        tombstone.getDynamodb().getKeys().put("user_id",
+                new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue(
+                        FollowLedger.LEGACY_PREFIX + "user-2"));
+
+        handler.handleRequest(event(record("INSERT", "cause-a"), tombstone, tombstone), null);
+
+        assertEquals(-1, tally("cause-a", "stream_delta"));
+    }
+
+    @Test
+    void testReplayedBatchIsTalliedOnce() {
+        DynamodbEvent event = event(record("INSERT", "cause-a"), record("INSERT", "cause-a"));
+
+        handler.handleRequest(event, null);
+        handler.handleRequest(event, null);
+
+        assertEquals(2, tally("cause-a", "stream_delta"));
+    }
+
+    @Test
+    void testRetriedChunkWithExtraRecordsIsTalliedOnce() {
+        DynamodbEvent.DynamodbStreamRecord first = record("INSERT", "cause-a");
+        DynamodbEvent.DynamodbStreamRecord second = record("INSERT", "cause-b");
+        handler.handleRequest(event(first, second), null);
+
+        // the retry starts at the same record but now reaches past where the first attempt ended
+        StreamsEventResponse response = handler.handleRequest(
+                event(first, second, record("INSERT", "cause-a"), record("INSERT", "cause-c")), null);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(2, tally("cause-a", "stream_delta"));
+        assertEquals(1, tally("cause-b", "stream_delta"));
+        assertEquals(1, tally("cause-c", "stream_delta"));
+    }
+
+    @Test
+    void testChunkTokenDependsOnlyOnTheFirstRecord() {
+        DynamodbEvent.DynamodbStreamRecord first = record("INSERT", "cause-a");
+        DynamodbEvent.DynamodbStreamRecord moved = record("INSERT", "cause-a");
+        moved.setEventSourceARN(STREAM_ARN.replace("user_follows", "other_table"));
+        moved.getDynamodb().setSequenceNumber(first.getDynamodb().getSequenceNumber());
+
+        assertEquals(FollowerReconciliationHandler.chunkToken(first), FollowerReconciliationHandler.chunkToken(first));
+        assertNotEquals(FollowerReconciliationHandler.chunkToken(first), FollowerReconciliationHandler.chunkToken(moved));
+        assertNotEquals(FollowerReconciliationHandler.chunkToken(first),
+                FollowerReconciliationHandler.chunkToken(record("INSERT", "cause-a")));
+    }
+
+    @Test
+    void testConfirmedDriftIsCorrected() {
+        setFollowerCount("cause-a", 5);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        assertEquals(4, tally("cause-a", "baseline"));
+
+        // a lost unfollow pushed the counter 25 above the edges
+        setFollowerCount("cause-a", 30);
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        assertEquals(30, followerCount("cause-a"));
+
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("REMOVE", "cause-a")), null);
+        assertEquals(6, followerCount("cause-a"));
+        // the correction is not follower velocity
+        assertTrue(dynamoDb.item(CauseFollowerCounter.CAUSES_TABLE, Map.of("cause_id", AttributeValue.fromS("cause-a")))
+                .keySet().stream().noneMatch(name -> name.startsWith(CauseFollowerCounter.VELOCITY_HOUR_PREFIX)));
+    }
+
+    @Test
+    void testDriftConfirmedByTwoContainersIsCorrectedOnce() {
+        setFollowerCount("cause-a", 5);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        setFollowerCount("cause-a", 30);
+        // the second container reads follower_count just before the first one corrects it
+        DynamoDbClient staleReads = spy(dynamoDb);
+        doReturn(GetItemResponse.builder()
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-a"), "follower_count", AttributeValue.fromN("30")))
+                .build())
+                .when(staleReads).getItem(argThat((GetItemRequest r) ->
+                        r != null && CauseFollowerCounter.CAUSES_TABLE.equals(r.tableName())));
+        FollowerReconciliationHandler other = new FollowerReconciliationHandler(staleReads, 10, INTERVAL, now::get);
+
+        now.addAndGet(INTERVAL);
+        assertEquals(0, handler.checkDrift("cause-a"));
+        assertEquals(0, other.checkDrift("cause-a"));
+        now.addAndGet(INTERVAL);
+        assertEquals(-25, handler.checkDrift("cause-a"));
+        assertEquals(0, other.checkDrift("cause-a"));
+
+        assertEquals(5, followerCount("cause-a"));
+        assertEquals(now.get(), tally("cause-a", "corrected_at"));
+    }
+
+    @Test
+    void testSmallOrUnconfirmedDriftIsLeftAlone() {
+        setFollowerCount("cause-a", 0);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+
+        setFollowerCount("cause-a", 9);
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        assertEquals(9, followerCount("cause-a"));
+
+        setFollowerCount("cause-a", 40);
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        setFollowerCount("cause-a", -40);
+        now.addAndGet(INTERVAL);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        assertEquals(-40, followerCount("cause-a"));
+    }
+
+    @Test
+    void testCausesAreCheckedOncePerInterval() {
+        setFollowerCount("cause-a", 0);
+        handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        setFollowerCount("cause-a", 50);
+
+        for (int i = 0; i < 5; i++) {
+            handler.handleRequest(event(record("INSERT", "cause-a")), null);
+        }
+
+        assertEquals(50, followerCount("cause-a"));
+    }
+
+    @Test
+    void testFailedCommitCheckpointsAtFirstUncommittedRecord() {
+        DynamoDbClient failing = mock(DynamoDbClient.class);
+        when(failing.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build())
+                .thenThrow(DynamoDbException.builder().message("boom").build());
+        when(failing.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+        FollowerReconciliationHandler handler = new FollowerReconciliationHandler(failing, 10, INTERVAL, now::get);
+        List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            records.add(record("INSERT", "cause-" + i));
+        }
+
+        StreamsEventResponse response = handler.handleRequest(event(records.toArray(new DynamodbEvent.DynamodbStreamRecord[0])), null);
+
+        assertEquals(1, response.getBatchItemFailures().size());
+        assertEquals(records.get(FollowerReconciliationHandler.MAX_CAUSES_PER_COMMIT).getDynamodb().getSequenceNumber(),
+                response.getBatchItemFailures().get(0).getItemIdentifier());
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(failing, times(2)).transactWriteItems(captor.capture());
+        assertEquals(FollowerReconciliationHandler.MAX_CAUSES_PER_COMMIT, captor.getAllValues().get(0).transactItems().size());
+        assertEquals(50, captor.getAllValues().get(1).transactItems().size());
+        assertNotEquals(captor.getAllValues().get(0).clientRequestToken(), captor.getAllValues().get(1).clientRequestToken());
+    }
+
+    private void setFollowerCount(String causeId, long count) {
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS(causeId),
+                        "follower_count", AttributeValue.fromN(Long.toString(count))))
+                .build());
+    }
+
+    private long followerCount(String causeId) {
+        return Long.parseLong(dynamoDb.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS(causeId))).get("follower_count").n());
+    }
+
+    private long tally(String causeId, String attribute) {
+        return Long.parseLong(dynamoDb.item(FollowerReconciliationHandler.TALLY_TABLE,
+                Map.of("cause_id", AttributeValue.fromS(causeId))).get(attribute).n());
+    }
+
+    private DynamodbEvent.DynamodbStreamRecord record(String eventName, String causeId) {
+        StreamRecord stream = new StreamRecord();
+        stream.setKeys(new HashMap<>(Map.of(
+                "user_id", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue("user-1"),
+                "cause_id", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue(causeId))));
+        stream.setSequenceNumber(String.format("%021d", ++sequence));
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(eventName);
+        record.setEventSourceARN(STREAM_ARN);
+        record.setDynamodb(stream);
+        return record;
+    }
+
+    private static DynamodbEvent event(DynamodbEvent.DynamodbStreamRecord... records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(records));
+        return event;
+    }
+}
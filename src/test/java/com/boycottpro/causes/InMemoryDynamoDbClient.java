@@ -0,0 +1,650 @@
+package com.boycottpro.causes;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-process stand-in for DynamoDB that follows the semantics this function
+ * relies on: SET with if_not_exists arithmetic, ADD and REMOVE clauses,
+ * attribute_exists / attribute_not_exists and comparison conditions,
+ * ConditionalCheckFailedException with the old item, and ReturnValues.
+ * TransactWriteItems checks every condition before applying any write and
+ * cancels with per-item reasons; a repeated ClientRequestToken is accepted
+ * without applying the writes again, or rejected with
+ * IdempotentParameterMismatchException if the writes differ. Only top-level attribute paths are supported.
+ *
+ * An optional per-partition write limit throws
+ * ProvisionedThroughputExceededException once a single key takes more writes
+ * in a one-second window than the limit allows, which is how a hot cause
+ * behaves against a real table. A transaction over the limit is cancelled
+ * with a ThrottlingError reason instead, as DynamoDB does. Transactions can
+ * also be made to cancel with TransactionConflict, as when another
+ * transaction holds the same item.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final Map<String, List<TransactWriteItem>> requestTokens = new ConcurrentHashMap<>();
+    private volatile int partitionWritesPerSecond;
+    private final AtomicInteger pendingConflicts = new AtomicInteger();
+
+    public InMemoryDynamoDbClient createTable(String tableName, String... keyAttributes) {
+        tables.put(tableName, new Table(List.of(keyAttributes)));
+        return this;
+    }
+
+    /**
+     * Caps writes per key per second; 0 (the default) means unlimited.
+     */
+    public InMemoryDynamoDbClient withPartitionWriteLimit(int writesPerSecond) {
+        this.partitionWritesPerSecond = writesPerSecond;
+        return this;
+    }
+
+    /**
+     * Cancels the next count transactions with TransactionConflict.
+     */
+    public InMemoryDynamoDbClient withTransactionConflicts(int count) {
+        pendingConflicts.set(count);
+        return this;
+    }
+
+    public Map<String, AttributeValue> item(String tableName, Map<String, AttributeValue> key) {
+        Table table = table(tableName);
+        Map<String, AttributeValue> item = table.items.get(table.keyOf(key));
+        return (item == null) ? null : Map.copyOf(item);
+    }
+
+    public int size(String tableName) {
+        return table(tableName).items.size();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        Table table = table(request.tableName());
+        String key = table.keyOf(request.item());
+        synchronized (table.lockFor(key)) {
+            Map<String, AttributeValue> existing = table.items.get(key);
+            checkCondition(request.conditionExpression(), existing, request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), request.returnValuesOnConditionCheckFailureAsString());
+            throttle(table, key);
+            table.items.put(key, new HashMap<>(request.item()));
+        }
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        Table table = table(request.tableName());
+        Map<String, AttributeValue> item = table.items.get(table.keyOf(request.key()));
+        return (item == null) ? GetItemResponse.builder().build()
+                : GetItemResponse.builder().item(Map.copyOf(item)).build();
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        request.requestItems().forEach((tableName, keys) -> {
+            Table table = table(tableName);
+            List<Map<String, AttributeValue>> found = new ArrayList<>();
+            for (Map<String, AttributeValue> key : keys.keys()) {
+                Map<String, AttributeValue> item = table.items.get(table.keyOf(key));
+                if (item != null) {
+                    found.add(Map.copyOf(item));
+                }
+            }
+            responses.put(tableName, found);
+        });
+        return BatchGetItemResponse.builder().responses(responses).build();
+    }
+
+    // one page with every item; projections and filters are ignored
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (Map<String, AttributeValue> item : table(request.tableName()).items.values()) {
+            items.add(Map.copyOf(item));
+        }
+        return ScanResponse.builder().items(items).count(items.size()).build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        Table table = table(request.tableName());
+        String key = table.keyOf(request.key());
+        synchronized (table.lockFor(key)) {
+            checkCondition(request.conditionExpression(), table.items.get(key), request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), request.returnValuesOnConditionCheckFailureAsString());
+            table.items.remove(key);
+        }
+        return DeleteItemResponse.builder().build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        Table table = table(request.tableName());
+        String key = table.keyOf(request.key());
+        synchronized (table.lockFor(key)) {
+            Map<String, AttributeValue> existing = table.items.get(key);
+            checkCondition(request.conditionExpression(), existing, request.expressionAttributeNames(),
+                    request.expressionAttributeValues(), request.returnValuesOnConditionCheckFailureAsString());
+            throttle(table, key);
+            Map<String, AttributeValue> updated = (existing == null) ? new HashMap<>(request.key()) : new HashMap<>(existing);
+            Set<String> touched = new Expression(request.updateExpression(), updated,
+                    request.expressionAttributeNames(), request.expressionAttributeValues()).applyUpdate();
+            table.items.put(key, updated);
+            return UpdateItemResponse.builder()
+                    .attributes(returnValues(request.returnValuesAsString(), existing, updated, touched))
+                    .build();
+        }
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        List<TransactWriteItem> committed = (request.clientRequestToken() == null)
+                ? null : requestTokens.get(request.clientRequestToken());
+        if (committed != null) {
+            if (!committed.equals(request.transactItems())) {
+                throw IdempotentParameterMismatchException.builder()
+                        .message("ClientRequestToken reused with different parameters")
+                        .build();
+            }
+            return TransactWriteItemsResponse.builder().build();
+        }
+        List<TransactionalWrite> writes = new ArrayList<>();
+        for (TransactWriteItem item : request.transactItems()) {
+            writes.add(new TransactionalWrite(item));
+        }
+        // lock every key in a fixed order so concurrent transactions cannot deadlock
+        List<TransactionalWrite> lockOrder = new ArrayList<>(writes);
+        lockOrder.sort(Comparator.comparing(w -> w.tableName + '\u0001' + w.key));
+        return locked(lockOrder, 0, () -> {
+            if (pendingConflicts.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw cancelled(writes, "TransactionConflict");
+            }
+            List<CancellationReason> reasons = new ArrayList<>();
+            boolean cancelled = false;
+            for (TransactionalWrite write : writes) {
+                Map<String, AttributeValue> existing = write.table.items.get(write.key);
+                try {
+                    checkCondition(write.condition, existing, write.names, write.values, write.returnOnFailure);
+                    reasons.add(CancellationReason.builder().code("None").build());
+                } catch (ConditionalCheckFailedException e) {
+                    cancelled = true;
+                    reasons.add(CancellationReason.builder()
+                            .code("ConditionalCheckFailed")
+                            .message(e.getMessage())
+                            .item(e.item())
+                            .build());
+                }
+            }
+            if (cancelled) {
+                throw cancelled(reasons);
+            }
+            List<TransactionalWrite> throttled = new ArrayList<>();
+            for (TransactionalWrite write : writes) {
+                if (write.writes && overLimit(write.table, write.key)) {
+                    throttled.add(write);
+                }
+            }
+            if (!throttled.isEmpty()) {
+                List<CancellationReason> capacity = new ArrayList<>();
+                for (TransactionalWrite write : writes) {
+                    capacity.add(CancellationReason.builder()
+                            .code(throttled.contains(write) ? "ThrottlingError" : "None")
+                            .build());
+                }
+                throw cancelled(capacity);
+            }
+            for (TransactionalWrite write : writes) {
+                write.apply();
+            }
+            if (request.clientRequestToken() != null) {
+                requestTokens.put(request.clientRequestToken(), request.transactItems());
+            }
+            return TransactWriteItemsResponse.builder().build();
+        });
+    }
+
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Table table(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw ResourceNotFoundException.builder().message("Requested resource not found: " + tableName).build();
+        }
+        return table;
+    }
+
+    private void throttle(Table table, String key) {
+        if (overLimit(table, key)) {
+            throw ProvisionedThroughputExceededException.builder()
+                    .message("The level of configured provisioned throughput for the table was exceeded")
+                    .build();
+        }
+    }
+
+    private boolean overLimit(Table table, String key) {
+        int limit = partitionWritesPerSecond;
+        return limit > 0 && !table.window(key).tryAcquire(limit);
+    }
+
+    // the given code on every write, None on condition checks
+    private static TransactionCanceledException cancelled(List<TransactionalWrite> writes, String code) {
+        List<CancellationReason> reasons = new ArrayList<>();
+        for (TransactionalWrite write : writes) {
+            reasons.add(CancellationReason.builder().code(write.writes ? code : "None").build());
+        }
+        return cancelled(reasons);
+    }
+
+    private static TransactionCanceledException cancelled(List<CancellationReason> reasons) {
+        return TransactionCanceledException.builder()
+                .message("Transaction cancelled, please refer cancellation reasons for specific reasons")
+                .cancellationReasons(reasons)
+                .build();
+    }
+
+    private static <T> T locked(List<TransactionalWrite> writes, int index, Supplier<T> body) {
+        if (index == writes.size()) {
+            return body.get();
+        }
+        TransactionalWrite write = writes.get(index);
+        synchronized (write.table.lockFor(write.key)) {
+            return locked(writes, index + 1, body);
+        }
+    }
+
+    private static void checkCondition(String condition, Map<String, AttributeValue> existing,
+                                       Map<String, String> names, Map<String, AttributeValue> values,
+                                       String returnOnFailure) {
+        if (condition == null) {
+            return;
+        }
+        Map<String, AttributeValue> item = (existing == null) ? Map.of() : existing;
+        if (!new Expression(condition, item, names, values).evaluateCondition()) {
+            ConditionalCheckFailedException.Builder failure = ConditionalCheckFailedException.builder()
+                    .message("The conditional request failed");
+            if ("ALL_OLD".equals(returnOnFailure) && existing != null) {
+                failure.item(Map.copyOf(existing));
+            }
+            throw failure.build();
+        }
+    }
+
+    private static Map<String, AttributeValue> returnValues(String mode, Map<String, AttributeValue> before,
+                                                            Map<String, AttributeValue> after, Set<String> touched) {
+        if (mode == null || "NONE".equals(mode)) {
+            return null;
+        }
+        Map<String, AttributeValue> source = mode.endsWith("NEW") ? after : before;
+        if (source == null) {
+            return null;
+        }
+        if (mode.startsWith("ALL")) {
+            return Map.copyOf(source);
+        }
+        Map<String, AttributeValue> result = new HashMap<>();
+        for (String name : touched) {
+            if (source.containsKey(name)) {
+                result.put(name, source.get(name));
+            }
+        }
+        return result;
+    }
+
+    private static final class Table {
+        private final List<String> keyAttributes;
+        private final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        private final Map<String, Object> locks = new ConcurrentHashMap<>();
+        private final Map<String, WriteWindow> windows = new ConcurrentHashMap<>();
+
+        private Table(List<String> keyAttributes) {
+            this.keyAttributes = keyAttributes;
+        }
+
+        private String keyOf(Map<String, AttributeValue> item) {
+            StringBuilder key = new StringBuilder();
+            for (String attribute : keyAttributes) {
+                AttributeValue value = item.get(attribute);
+                if (value == null) {
+                    throw DynamoDbException.builder()
+                            .message("One of the required keys was not given a value: " + attribute).build();
+                }
+                key.append(value.s() != null ? value.s() : value.n()).append('\u0000');
+            }
+            return key.toString();
+        }
+
+        private Object lockFor(String key) {
+            return locks.computeIfAbsent(key, k -> new Object());
+        }
+
+        private WriteWindow window(String key) {
+            return windows.computeIfAbsent(key, k -> new WriteWindow());
+        }
+    }
+
+    /**
+     * One Put, Update, Delete or ConditionCheck of a transaction, resolved to its table and key.
+     */
+    private final class TransactionalWrite {
+        private final TransactWriteItem item;
+        private final String tableName;
+        private final Table table;
+        private final Map<String, AttributeValue> keyAttributes;
+        private final String key;
+        private final String condition;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private final String returnOnFailure;
+        private final boolean writes;
+
+        private TransactionalWrite(TransactWriteItem item) {
+            this.item = item;
+            if (item.put() != null) {
+                Put put = item.put();
+                tableName = put.tableName();
+                keyAttributes = put.item();
+                condition = put.conditionExpression();
+                names = put.expressionAttributeNames();
+                values = put.expressionAttributeValues();
+                returnOnFailure = put.returnValuesOnConditionCheckFailureAsString();
+            } else if (item.update() != null) {
+                Update update = item.update();
+                tableName = update.tableName();
+                keyAttributes = update.key();
+                condition = update.conditionExpression();
+                names = update.expressionAttributeNames();
+                values = update.expressionAttributeValues();
+                returnOnFailure = update.returnValuesOnConditionCheckFailureAsString();
+            } else if (item.delete() != null) {
+                Delete delete = item.delete();
+                tableName = delete.tableName();
+                keyAttributes = delete.key();
+                condition = delete.conditionExpression();
+                names = delete.expressionAttributeNames();
+                values = delete.expressionAttributeValues();
+                returnOnFailure = delete.returnValuesOnConditionCheckFailureAsString();
+            } else {
+                ConditionCheck check = item.conditionCheck();
+                tableName = check.tableName();
+                keyAttributes = check.key();
+                condition = check.conditionExpression();
+                names = check.expressionAttributeNames();
+                values = check.expressionAttributeValues();
+                returnOnFailure = check.returnValuesOnConditionCheckFailureAsString();
+            }
+            table = table(tableName);
+            key = table.keyOf(keyAttributes);
+            writes = item.conditionCheck() == null;
+        }
+
+        private void apply() {
+            if (item.put() != null) {
+                table.items.put(key, new HashMap<>(item.put().item()));
+            } else if (item.delete() != null) {
+                table.items.remove(key);
+            } else if (item.update() != null) {
+                Map<String, AttributeValue> existing = table.items.get(key);
+                Map<String, AttributeValue> updated = (existing == null)
+                        ? new HashMap<>(keyAttributes) : new HashMap<>(existing);
+                new Expression(item.update().updateExpression(), updated, names, values).applyUpdate();
+                table.items.put(key, updated);
+            }
+        }
+    }
+
+    private static final class WriteWindow {
+        private long second;
+        private int writes;
+
+        private synchronized boolean tryAcquire(int limit) {
+            long now = System.currentTimeMillis() / 1000;
+            if (now != second) {
+                second = now;
+                writes = 0;
+            }
+            return ++writes <= limit;
+        }
+    }
+
+    /**
+     * Tokenizes and evaluates one update or condition expression against an item.
+     */
+    private static final class Expression {
+        private final List<String> tokens = new ArrayList<>();
+        private final Map<String, AttributeValue> item;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private int pos;
+
+        private Expression(String text, Map<String, AttributeValue> item,
+                           Map<String, String> names, Map<String, AttributeValue> values) {
+            this.item = item;
+            this.names = (names == null) ? Map.of() : names;
+            this.values = (values == null) ? Map.of() : values;
+            tokenize(text);
+        }
+
+        private void tokenize(String text) {
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (Character.isLetterOrDigit(c) || c == '_' || c == '#' || c == ':') {
+                    int start = i++;
+                    while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+                        i++;
+                    }
+                    tokens.add(text.substring(start, i));
+                } else if ((c == '<' || c == '>') && i + 1 < text.length()
+                        && (text.charAt(i + 1) == '=' || (c == '<' && text.charAt(i + 1) == '>'))) {
+                    tokens.add(text.substring(i, i + 2));
+                    i += 2;
+                } else {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                }
+            }
+        }
+
+        private Set<String> applyUpdate() {
+            Set<String> touched = new LinkedHashSet<>();
+            Map<String, AttributeValue> pending = new LinkedHashMap<>();
+            Set<String> removed = new LinkedHashSet<>();
+            while (pos < tokens.size()) {
+                String clause = next().toUpperCase();
+                do {
+                    if (clause.equals("SET")) {
+                        String name = name(next());
+                        expect("=");
+                        pending.put(name, arithmetic());
+                        touched.add(name);
+                    } else if (clause.equals("ADD")) {
+                        String name = name(next());
+                        AttributeValue current = item.get(name);
+                        pending.put(name, current == null ? operand() : add(current, operand(), 1));
+                        touched.add(name);
+                    } else if (clause.equals("REMOVE")) {
+                        String name = name(next());
+                        removed.add(name);
+                        touched.add(name);
+                    } else {
+                        throw new UnsupportedOperationException("unsupported update clause " + clause);
+                    }
+                } while (accept(","));
+            }
+            // every operand reads the item as it was before the update
+            item.putAll(pending);
+            removed.forEach(item::remove);
+            return touched;
+        }
+
+        private boolean evaluateCondition() {
+            boolean result = or();
+            if (pos != tokens.size()) {
+                throw new UnsupportedOperationException("unexpected token " + tokens.get(pos));
+            }
+            return result;
+        }
+
+        private boolean or() {
+            boolean result = and();
+            while (acceptKeyword("OR")) {
+                result = and() | result;
+            }
+            return result;
+        }
+
+        private boolean and() {
+            boolean result = not();
+            while (acceptKeyword("AND")) {
+                result = not() & result;
+            }
+            return result;
+        }
+
+        private boolean not() {
+            if (acceptKeyword("NOT")) {
+                return !not();
+            }
+            if (accept("(")) {
+                boolean result = or();
+                expect(")");
+                return result;
+            }
+            String token = tokens.get(pos);
+            if (token.equals("attribute_exists") || token.equals("attribute_not_exists")) {
+                pos++;
+                expect("(");
+                boolean exists = item.containsKey(name(next()));
+                expect(")");
+                return token.equals("attribute_exists") == exists;
+            }
+            AttributeValue left = operand();
+            String comparator = next();
+            AttributeValue right = operand();
+            if (left == null || right == null) {
+                return comparator.equals("<>") && (left != null || right != null);
+            }
+            int cmp = (left.n() != null && right.n() != null)
+                    ? new BigDecimal(left.n()).compareTo(new BigDecimal(right.n()))
+                    : String.valueOf(stringOf(left)).compareTo(String.valueOf(stringOf(right)));
+            switch (comparator) {
+                case "=": return cmp == 0;
+                case "<>": return cmp != 0;
+                case "<": return cmp < 0;
+                case "<=": return cmp <= 0;
+                case ">": return cmp > 0;
+                case ">=": return cmp >= 0;
+                default: throw new UnsupportedOperationException("unsupported comparator " + comparator);
+            }
+        }
+
+        private AttributeValue arithmetic() {
+            AttributeValue result = operand();
+            while (pos < tokens.size() && (tokens.get(pos).equals("+") || tokens.get(pos).equals("-"))) {
+                int sign = next().equals("+") ? 1 : -1;
+                result = add(result, operand(), sign);
+            }
+            return result;
+        }
+
+        private AttributeValue operand() {
+            String token = next();
+            if (token.equals("if_not_exists")) {
+                expect("(");
+                AttributeValue current = item.get(name(next()));
+                expect(",");
+                AttributeValue fallback = operand();
+                expect(")");
+                return (current != null) ? current : fallback;
+            }
+            if (token.startsWith(":")) {
+                AttributeValue value = values.get(token);
+                if (value == null) {
+                    throw DynamoDbException.builder()
+                            .message("An expression attribute value used in expression is not defined: " + token).build();
+                }
+                return value;
+            }
+            return item.get(name(token));
+        }
+
+        private static AttributeValue add(AttributeValue left, AttributeValue right, int sign) {
+            if (left == null || left.n() == null || right == null || right.n() == null) {
+                throw DynamoDbException.builder()
+                        .message("An operand in the update expression has an incorrect data type").build();
+            }
+            BigDecimal sum = new BigDecimal(left.n()).add(new BigDecimal(right.n()).multiply(BigDecimal.valueOf(sign)));
+            return AttributeValue.fromN(sum.toPlainString());
+        }
+
+        private static Object stringOf(AttributeValue value) {
+            return (value.s() != null) ? value.s() : (value.bool() != null ? value.bool().toString() : value.n());
+        }
+
+        private String name(String token) {
+            if (token.startsWith("#")) {
+                String name = names.get(token);
+                if (name == null) {
+                    throw DynamoDbException.builder()
+                            .message("An expression attribute name used in expression is not defined: " + token).build();
+                }
+                return name;
+            }
+            return token;
+        }
+
+        private String next() {
+            if (pos >= tokens.size()) {
+                throw DynamoDbException.builder().message("Invalid expression: unexpected end").build();
+            }
+            return tokens.get(pos++);
+        }
+
+        private boolean accept(String token) {
+            if (pos < tokens.size() && tokens.get(pos).equals(token)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(keyword)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw DynamoDbException.builder().message("Invalid expression: expected " + token).build();
+            }
+        }
+    }
+}
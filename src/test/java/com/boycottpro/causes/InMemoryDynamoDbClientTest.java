@@ -0,0 +1,217 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDynamoDbClientTest {
+
+    private InMemoryDynamoDbClient dynamoDb;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-1")))
+                .build());
+    }
+
+    @Test
+    void testIfNotExistsArithmetic() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+
+        counter.applyDelta("cause-1", "user-1", 1);
+        counter.applyDelta("cause-1", "user-2", 1);
+        counter.applyDelta("cause-1", "user-1", -1);
+
+        assertEquals("1", followerCount("cause-1"));
+    }
+
+    @Test
+    void testAttributeExistsConditionOnMissingCause() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+
+        ConditionalCheckFailedException e = assertThrows(ConditionalCheckFailedException.class,
+                () -> counter.applyDelta("missing", "user-1", 1));
+
+        assertTrue(e.item() == null || e.item().isEmpty());
+        assertEquals(1, dynamoDb.size(CauseFollowerCounter.CAUSES_TABLE));
+    }
+
+    @Test
+    void testShardingSwitchKeepsCounts() {
+        CauseFollowerCounter writer = new CauseFollowerCounter(dynamoDb);
+        writer.applyDelta("cause-1", "user-1", 1);
+        writer.applyDelta("cause-1", "user-2", 1);
+
+        new CauseFollowerCounter(dynamoDb).enableSharding("cause-1", 4);
+        // this writer has not seen the switch and finds out from the failed condition
+        for (int i = 0; i < 10; i++) {
+            writer.applyDelta("cause-1", "user-" + i, 1);
+        }
+
+        assertEquals("2", followerCount("cause-1"));
+        assertEquals(12, writer.readFollowerCount("cause-1"));
+        assertTrue(dynamoDb.size(CauseFollowerCounter.SHARD_TABLE) > 1);
+    }
+
+    @Test
+    void testVelocityBucketsRollOverInTheWrite() {
+        AtomicLong now = new AtomicLong(1_000L * 3_600_000L);
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb, 3, 2, now::get);
+        counter.applyDelta("cause-1", "user-1", 1);
+        counter.applyDelta("cause-1", "user-2", 1);
+        now.addAndGet(3_600_000L);
+        counter.applyDelta("cause-1", "user-3", 1);
+        counter.applyDelta("cause-1", "user-1", -1);
+        now.addAndGet(3_600_000L);
+        counter.applyDelta("cause-1", "user-4", 1);
+
+        assertEquals(3, counter.readHourlyVelocity("cause-1", 3));
+        assertEquals(1, counter.readHourlyVelocity("cause-1", 1));
+
+        // the first hour's bucket leaves the window, then is removed by the next write
+        now.addAndGet(2 * 3_600_000L);
+        assertEquals(1, counter.readHourlyVelocity("cause-1", 3));
+        counter.applyDelta("cause-1", "user-5", 1);
+        Map<String, AttributeValue> item = dynamoDb.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS("cause-1")));
+        assertFalse(item.containsKey("velocity_h1000"));
+        assertEquals(2, counter.readHourlyVelocity("cause-1", 3));
+        assertEquals(4, counter.readDailyVelocity("cause-1", 2));
+        assertEquals("4", followerCount("cause-1"));
+    }
+
+    @Test
+    void testVelocityIsSummedOverShards() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb, 24, 7, () -> 1_000L * 3_600_000L);
+        counter.applyDelta("cause-1", "user-0", 1);
+        counter.enableSharding("cause-1", 4);
+        for (int i = 1; i < 10; i++) {
+            counter.applyDelta("cause-1", "user-" + i, 1);
+        }
+
+        assertEquals(10, counter.readHourlyVelocity("cause-1", 24));
+        assertEquals(10, counter.readDailyVelocity("cause-1", 7));
+    }
+
+    @Test
+    void testFollowLedgerCountsEachEdgeOnce() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb),
+                new RecentFollowCache(0, 10, System::currentTimeMillis));
+
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-2", true));
+        assertEquals(FollowLedger.Outcome.ALREADY_APPLIED, ledger.setFollowing("cause-1", "user-3", false));
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-2", false));
+
+        assertEquals("1", followerCount("cause-1"));
+        assertEquals(1, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+        assertThrows(CauseNotFoundException.class, () -> ledger.setFollowing("missing", "user-1", true));
+        assertEquals(1, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testFollowLedgerFollowsShardingSwitch() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        ledger.setFollowing("cause-1", "user-1", true);
+
+        new CauseFollowerCounter(dynamoDb).enableSharding("cause-1", 4);
+        for (int i = 0; i < 10; i++) {
+            ledger.setFollowing("cause-1", "user-" + i, true);
+        }
+
+        assertEquals("1", followerCount("cause-1"));
+        assertEquals(10, new CauseFollowerCounter(dynamoDb).readFollowerCount("cause-1"));
+        assertEquals(10, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testComparisonConditionsAndReturnValues() {
+        UpdateItemResponse response = dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS("cause-1")))
+                .updateExpression("SET #c = if_not_exists(#c, :zero) + :delta ADD visits :delta")
+                .conditionExpression("attribute_exists(cause_id) AND (attribute_not_exists(#c) OR #c < :max)")
+                .expressionAttributeNames(Map.of("#c", "follower_count"))
+                .expressionAttributeValues(Map.of(":zero", AttributeValue.fromN("0"),
+                        ":delta", AttributeValue.fromN("5"), ":max", AttributeValue.fromN("5")))
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build());
+        assertEquals("5", response.attributes().get("follower_count").n());
+        assertEquals("5", response.attributes().get("visits").n());
+
+        assertThrows(ConditionalCheckFailedException.class, () -> dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .key(Map.of("cause_id", AttributeValue.fromS("cause-1")))
+                .updateExpression("REMOVE visits")
+                .conditionExpression("follower_count < :max")
+                .expressionAttributeValues(Map.of(":max", AttributeValue.fromN("5")))
+                .build()));
+    }
+
+    @Test
+    void testPartitionWriteLimit() {
+        CauseFollowerCounter counter = new CauseFollowerCounter(dynamoDb);
+        dynamoDb.withPartitionWriteLimit(3);
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                counter.applyDelta("cause-1", "user-1", 1);
+            }
+        });
+    }
+
+    @Test
+    void testThrottledTransactionIsCancelledWithThrottlingError() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        dynamoDb.withPartitionWriteLimit(3);
+
+        TransactionCanceledException e = assertThrows(TransactionCanceledException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                ledger.setFollowing("cause-1", "user-" + i, true);
+            }
+        });
+
+        assertEquals("ThrottlingError", e.cancellationReasons().get(1).code());
+        assertTrue(FollowWritePolicy.isThrottle(e));
+        // the cancelled transaction wrote neither its edge nor its count
+        assertEquals(Integer.toString(dynamoDb.size(FollowLedger.LEDGER_TABLE)), followerCount("cause-1"));
+    }
+
+    @Test
+    void testInjectedConflictCancelsTheTransaction() {
+        FollowLedger ledger = new FollowLedger(dynamoDb, new CauseFollowerCounter(dynamoDb));
+        dynamoDb.withTransactionConflicts(1);
+
+        TransactionCanceledException e = assertThrows(TransactionCanceledException.class,
+                () -> ledger.setFollowing("cause-1", "user-1", true));
+
+        assertTrue(FollowWritePolicy.isConflict(e));
+        assertEquals(0, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(FollowLedger.Outcome.APPLIED, ledger.setFollowing("cause-1", "user-1", true));
+    }
+
+    @Test
+    void testUnknownTable() {
+        assertThrows(ResourceNotFoundException.class, () -> dynamoDb.getItem(GetItemRequest.builder()
+                .tableName("nope")
+                .key(Map.of("cause_id", AttributeValue.fromS("x")))
+                .build()));
+    }
+
+    private String followerCount(String causeId) {
+        return dynamoDb.item(CauseFollowerCounter.CAUSES_TABLE, Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .get("follower_count").n();
+    }
+}
@@ -3,16 +3,31 @@ package com.boycottpro.causes;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,12 +40,16 @@ class IncrementCauseFollowerHandlerTest {
     @Mock
     private DynamoDbClient dynamoDb;
 
-    @InjectMocks
     private IncrementCauseFollowerHandler handler;
 
     @Mock
     private Context context;
 
+    @BeforeEach
+    void setUp() {
+        handler = new IncrementCauseFollowerHandler(dynamoDb);
+    }
+
     @Test
     void testSuccessfulIncrement() {
         String causeId = "test-cause";
@@ -44,14 +63,14 @@ class IncrementCauseFollowerHandlerTest {
         event.setRequestContext(rc);
         event.setPathParameters(Map.of("cause_id", causeId, "increment", "true"));
 
-        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
-                .thenReturn(UpdateItemResponse.builder().build());
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
 
         APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
 
         assertEquals(200, response.getStatusCode());
         assertTrue(response.getBody().contains("cause record updated = true"));
-        verify(dynamoDb, times(1)).updateItem(any(UpdateItemRequest.class));
+        verify(dynamoDb, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
     }
 
     @Test
@@ -272,8 +291,8 @@ class IncrementCauseFollowerHandlerTest {
         pathParams.put("increment", "false"); // Decrement
         event.setPathParameters(pathParams);
 
-        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
-                .thenReturn(UpdateItemResponse.builder().build());
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
 
         APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
 
@@ -283,7 +302,7 @@ class IncrementCauseFollowerHandlerTest {
 
     @Test
     public void testConditionalCheckFailedException() {
-        // Test lines 105-107: ConditionalCheckFailedException handling
+        // a failed cause condition cancels the transaction and means the cause does not exist
         APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
         Map<String, String> claims = Map.of("sub", "11111111-2222-3333-4444-555555555555");
         Map<String, Object> authorizer = new HashMap<>();
@@ -298,14 +317,20 @@ class IncrementCauseFollowerHandlerTest {
         pathParams.put("increment", "true");
         event.setPathParameters(pathParams);
 
-        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
-                .thenThrow(software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException.builder()
-                        .message("Not found").build());
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled("None", "ConditionalCheckFailed"));
 
         APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
 
-        assertEquals(500, response.getStatusCode());
-        assertTrue(response.getBody().contains("Unexpected server error"));
+        assertEquals(404, response.getStatusCode());
+        assertTrue(response.getBody().contains("cause not found"));
+
+        // the missing id is now cached, so a retry is answered without a write
+        APIGatewayProxyResponseEvent retry = handler.handleRequest(event, context);
+
+        assertEquals(404, retry.getStatusCode());
+        verify(dynamoDb, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        assertEquals(1, handler.missingCauses().hits());
     }
 
     @Test
@@ -325,7 +350,7 @@ class IncrementCauseFollowerHandlerTest {
         pathParams.put("increment", "true");
         event.setPathParameters(pathParams);
 
-        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
                 .thenThrow(software.amazon.awssdk.services.dynamodb.model.DynamoDbException.builder()
                         .message("DynamoDB error").build());
 
@@ -352,7 +377,7 @@ class IncrementCauseFollowerHandlerTest {
         pathParams.put("increment", "true");
         event.setPathParameters(pathParams);
 
-        when(dynamoDb.updateItem(any(UpdateItemRequest.class)))
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
                 .thenThrow(new RuntimeException("Generic error"));
 
         APIGatewayProxyResponseEvent response = handler.handleRequest(event, context);
@@ -379,4 +404,265 @@ class IncrementCauseFollowerHandlerTest {
         assertTrue(response.getBody().contains("Development details"));
     }
 
+    @Test
+    public void testBeforeCheckpointPrimesWithoutNetworkCalls() throws Exception {
+        handler.beforeCheckpoint(null);
+
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    public void testAfterRestoreOpensConnection() {
+        when(dynamoDb.getItem(any(GetItemRequest.class)))
+                .thenThrow(software.amazon.awssdk.services.dynamodb.model.DynamoDbException.builder()
+                        .message("AccessDenied").build());
+
+        assertDoesNotThrow(() -> handler.afterRestore(null));
+        verify(dynamoDb, times(1)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    public void testSuccessReturnsTheCountReadBackAfterTheWrite() {
+        when(dynamoDb.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder()
+                        .item(Map.of("follower_count", AttributeValue.fromN("41")))
+                        .build())
+                .thenReturn(GetItemResponse.builder()
+                        .item(Map.of("follower_count", AttributeValue.fromN("42")))
+                        .build());
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        APIGatewayProxyRequestEvent read = authorizedEvent("test-cause", null);
+        read.setHttpMethod("GET");
+        handler.handleRequest(read, context);
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(authorizedEvent("test-cause", "true"), context);
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"follower_count\":42"));
+        assertTrue(response.getBody().contains("cause record updated = true"));
+
+        // the read path is now served from the count read back after the write
+        APIGatewayProxyResponseEvent readResponse = handler.handleRequest(read, context);
+
+        assertEquals(200, readResponse.getStatusCode());
+        assertTrue(readResponse.getBody().contains("\"follower_count\":42"));
+        ArgumentCaptor<GetItemRequest> reads = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDb, times(2)).getItem(reads.capture());
+        assertTrue(reads.getAllValues().get(1).consistentRead());
+    }
+
+    @Test
+    public void testDuplicateFollowSkipsDynamoDb() {
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        APIGatewayProxyResponseEvent first = handler.handleRequest(authorizedEvent("test-cause", "true"), context);
+        APIGatewayProxyResponseEvent second = handler.handleRequest(authorizedEvent("test-cause", "true"), context);
+
+        assertEquals(200, first.getStatusCode());
+        assertEquals(200, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        verify(dynamoDb, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        assertEquals(1, handler.recentFollows().hits());
+    }
+
+    @Test
+    public void testReplayedFollowIsNoOp() {
+        // another container already wrote this edge, so the edge condition cancels the transaction
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled("ConditionalCheckFailed", "None"));
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(authorizedEvent("test-cause", "false"), context);
+        APIGatewayProxyResponseEvent retry = handler.handleRequest(authorizedEvent("test-cause", "false"), context);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(200, retry.getStatusCode());
+        // the legacy_followers fallback is off without LEGACY_UNFOLLOW_UNTIL; the retry is answered from the cache
+        verify(dynamoDb, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        assertEquals(0, handler.missingCauses().size());
+    }
+
+    @Test
+    public void testReadPathFallsBackToDynamoDb() {
+        when(dynamoDb.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder()
+                        .item(Map.of("follower_count", AttributeValue.fromN("7")))
+                        .build());
+        APIGatewayProxyRequestEvent read = authorizedEvent("test-cause", null);
+        read.setHttpMethod("GET");
+
+        APIGatewayProxyResponseEvent first = handler.handleRequest(read, context);
+        APIGatewayProxyResponseEvent second = handler.handleRequest(read, context);
+
+        assertEquals(200, first.getStatusCode());
+        assertTrue(first.getBody().contains("\"follower_count\":7"));
+        assertEquals(first.getBody(), second.getBody());
+        verify(dynamoDb, times(1)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    public void testThrottledWriteReturns503WithRetryAfter() {
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled("None", "ThrottlingError"));
+
+        APIGatewayProxyResponseEvent response = handler.handleRequest(authorizedEvent("hot-cause", "true"), context);
+
+        assertEquals(503, response.getStatusCode());
+        assertNotNull(response.getHeaders().get("Retry-After"));
+        assertTrue(response.getBody().contains("follower updates are being throttled"));
+        assertTrue(handler.writePolicy().causeLimiter().rateOf("hot-cause") > 0);
+    }
+
+    @Test
+    public void testToggleLoopIsRateLimitedBeforeAnyWrite() {
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        for (int i = 0; i < FollowRateLimiter.DEFAULT_LIMIT; i++) {
+            APIGatewayProxyResponseEvent response = handler.handleRequest(
+                    authorizedEvent("test-cause", Boolean.toString(i % 2 == 0)), context);
+            assertEquals(200, response.getStatusCode());
+        }
+
+        APIGatewayProxyResponseEvent limited = handler.handleRequest(authorizedEvent("test-cause", "true"), context);
+
+        assertEquals(429, limited.getStatusCode());
+        assertNotNull(limited.getHeaders().get("Retry-After"));
+        assertTrue(limited.getBody().contains("too many follow requests"));
+        verify(dynamoDb, times(FollowRateLimiter.DEFAULT_LIMIT)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    public void testCoalescedFollowsKeepTheCountExact() throws Exception {
+        InMemoryDynamoDbClient memory = coalescingTables("hot-cause");
+        handler = new IncrementCauseFollowerHandler(memory);
+        int callers = 6;
+        handler.coalesceWrites(10_000, callers);
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String sub = "user-" + i;
+                results.add(pool.submit(() -> handler.incrementCauseRecord("hot-cause", sub, true, 3_000)));
+            }
+            for (Future<Long> result : results) {
+                assertEquals(callers, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(callers, followerCount(memory, "hot-cause"));
+        assertEquals(callers, memory.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(1, handler.deltaBuffer().flushes());
+
+        // a repeat is still a no-op
+        handler.incrementCauseRecord("hot-cause", "user-0", true, 3_000);
+        assertEquals(callers, followerCount(memory, "hot-cause"));
+    }
+
+    @Test
+    public void testCoalescedFollowOfMissingCauseRevertsTheEdge() {
+        InMemoryDynamoDbClient memory = coalescingTables("other-cause");
+        handler = new IncrementCauseFollowerHandler(memory);
+        handler.coalesceWrites(1, 10);
+
+        assertThrows(CauseNotFoundException.class,
+                () -> handler.incrementCauseRecord("missing-cause", "user-1", true, 3_000));
+
+        assertEquals(0, memory.size(FollowLedger.LEDGER_TABLE));
+        assertEquals(1, handler.missingCauses().size());
+    }
+
+    @Test
+    public void testNetZeroBatchOnMissingCauseRevertsBothEdges() throws Exception {
+        InMemoryDynamoDbClient memory = coalescingTables("other-cause");
+        memory.putItem(PutItemRequest.builder()
+                .tableName(FollowLedger.LEDGER_TABLE)
+                .item(Map.of("user_id", AttributeValue.fromS("user-2"),
+                        "cause_id", AttributeValue.fromS("missing-cause")))
+                .build());
+        handler = new IncrementCauseFollowerHandler(memory);
+        handler.coalesceWrites(10_000, 2);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> follow = pool.submit(() -> handler.incrementCauseRecord("missing-cause", "user-1", true, 3_000));
+            while (memory.size(FollowLedger.LEDGER_TABLE) < 2 && !follow.isDone()) {
+                Thread.sleep(1);
+            }
+            // the unfollow nets the batch to zero, so no counter write checks the cause
+            assertThrows(CauseNotFoundException.class,
+                    () -> handler.incrementCauseRecord("missing-cause", "user-2", false, 3_000));
+            Exception e = assertThrows(Exception.class, () -> follow.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(CauseNotFoundException.class, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, memory.size(FollowLedger.LEDGER_TABLE));
+        assertNotNull(memory.item(FollowLedger.LEDGER_TABLE, Map.of(
+                "user_id", AttributeValue.fromS("user-2"),
+                "cause_id", AttributeValue.fromS("missing-cause"))));
+        assertEquals(1, handler.missingCauses().size());
+    }
+
+    @Test
+    public void testCoalescedFollowWithUnknownOutcomeKeepsTheEdge() {
+        InMemoryDynamoDbClient memory = coalescingTables("cause-1");
+        DynamoDbClient failing = spy(memory);
+        doThrow(DynamoDbException.builder().message("service unavailable").statusCode(503).build())
+                .when(failing).updateItem(any(UpdateItemRequest.class));
+        handler = new IncrementCauseFollowerHandler(failing);
+        handler.coalesceWrites(1, 10);
+
+        assertThrows(DynamoDbException.class,
+                () -> handler.incrementCauseRecord("cause-1", "user-1", true, 3_000));
+
+        // the delta may have landed, so a retry must not count it again; the reconciler settles it
+        assertEquals(1, memory.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    private static InMemoryDynamoDbClient coalescingTables(String causeId) {
+        InMemoryDynamoDbClient memory = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        memory.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS(causeId)))
+                .build());
+        return memory;
+    }
+
+    private static long followerCount(InMemoryDynamoDbClient memory, String causeId) {
+        return Long.parseLong(memory.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS(causeId))).get("follower_count").n());
+    }
+
+    private static TransactionCanceledException cancelled(String edgeCode, String counterCode) {
+        return TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(CancellationReason.builder().code(edgeCode).build(),
+                        CancellationReason.builder().code(counterCode).build())
+                .build();
+    }
+
+    private static APIGatewayProxyRequestEvent authorizedEvent(String causeId, String increment) {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        Map<String, Object> authorizer = new HashMap<>();
+        authorizer.put("claims", Map.of("sub", "11111111-2222-3333-4444-555555555555"));
+        APIGatewayProxyRequestEvent.ProxyRequestContext rc = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        rc.setAuthorizer(authorizer);
+        event.setRequestContext(rc);
+        Map<String, String> pathParams = new HashMap<>();
+        pathParams.put("cause_id", causeId);
+        if (increment != null) {
+            pathParams.put("increment", increment);
+        }
+        event.setPathParameters(pathParams);
+        return event;
+    }
+
 }
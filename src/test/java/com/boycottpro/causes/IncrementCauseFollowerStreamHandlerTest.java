@@ -0,0 +1,170 @@
+package com.boycottpro.causes;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementCauseFollowerStreamHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private DynamoDbClient dynamoDb;
+
+    @Mock
+    private Context context;
+
+    @Test
+    void testFullApiGatewayEvent() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        JsonNode response;
+        try (InputStream input = getClass().getResourceAsStream("/api-gateway-follow-event.json")) {
+            response = invoke(handler, input);
+        }
+
+        assertEquals(200, response.get("statusCode").asInt());
+        assertEquals("application/json", response.get("headers").get("Content-Type").asText());
+        JsonNode body = objectMapper.readTree(response.get("body").asText());
+        assertEquals("cause record updated = true", body.get("message").asText());
+        assertEquals("cause-123", body.get("cause_id").asText());
+        assertFalse(body.has("follower_count"));
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDb).transactWriteItems(captor.capture());
+        assertEquals("cause-123", captor.getValue().transactItems().get(0).put().item().get("cause_id").s());
+        assertEquals("cause-123", captor.getValue().transactItems().get(1).update().key().get("cause_id").s());
+    }
+
+    @Test
+    void testUnauthorized() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+
+        JsonNode response = invoke(handler,
+                "{\"pathParameters\":{\"cause_id\":\"a\",\"increment\":\"true\"},"
+                        + "\"requestContext\":{\"authorizer\":{\"claims\":{\"email\":\"x\"}}}}");
+
+        assertEquals(401, response.get("statusCode").asInt());
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    void testValidationErrors() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        String auth = "\"requestContext\":{\"identity\":{\"sourceIp\":\"1.2.3.4\"},"
+                + "\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}}";
+
+        JsonNode missingCause = invoke(handler, "{" + auth + ",\"pathParameters\":null}");
+        JsonNode missingIncrement = invoke(handler, "{" + auth + ",\"pathParameters\":{\"cause_id\":\"a\"}}");
+        JsonNode badIncrement = invoke(handler,
+                "{\"pathParameters\":{\"cause_id\":\"a\",\"increment\":\"maybe\"}," + auth + "}");
+
+        assertEquals(400, missingCause.get("statusCode").asInt());
+        assertTrue(missingCause.get("body").asText().contains("cause_id not present"));
+        assertTrue(missingIncrement.get("body").asText().contains("increment not present"));
+        assertTrue(badIncrement.get("body").asText().contains("increment not acceptable value"));
+        verifyNoInteractions(dynamoDb);
+    }
+
+    @Test
+    void testDynamoDbFailure() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(DynamoDbException.builder().message("DynamoDB error").build());
+
+        JsonNode response = invoke(handler,
+                "{\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}},"
+                        + "\"pathParameters\":{\"cause_id\":\"a\",\"increment\":\"false\"}}");
+
+        assertEquals(500, response.get("statusCode").asInt());
+        assertTrue(response.get("body").asText().contains("Unexpected server error"));
+    }
+
+    @Test
+    void testMissingCause() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder()
+                        .message("Transaction cancelled")
+                        .cancellationReasons(CancellationReason.builder().code("None").build(),
+                                CancellationReason.builder().code("ConditionalCheckFailed").build())
+                        .build());
+
+        JsonNode response = invoke(handler,
+                "{\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}},"
+                        + "\"pathParameters\":{\"cause_id\":\"bogus\",\"increment\":\"true\"}}");
+
+        assertEquals(404, response.get("statusCode").asInt());
+        assertTrue(response.get("body").asText().contains("cause not found"));
+    }
+
+    @Test
+    void testGetReadsTheFollowerCount() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        when(dynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of("cause_id", AttributeValue.fromS("a"), "follower_count", AttributeValue.fromN("7")))
+                .build());
+
+        JsonNode response = invoke(handler, "{\"httpMethod\":\"GET\","
+                + "\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}},"
+                + "\"pathParameters\":{\"cause_id\":\"a\"}}");
+
+        assertEquals(200, response.get("statusCode").asInt());
+        assertEquals(FollowRequestTemplate.followerCountBody("a", 7L, null), response.get("body").asText());
+        verify(dynamoDb, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    void testRateLimitedBodyMatchesThePojoHandler() throws Exception {
+        IncrementCauseFollowerStreamHandler handler = new IncrementCauseFollowerStreamHandler(dynamoDb);
+        when(dynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        for (int i = 0; i < FollowRateLimiter.DEFAULT_LIMIT; i++) {
+            invoke(handler, "{\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}},"
+                    + "\"pathParameters\":{\"cause_id\":\"a\",\"increment\":\"" + (i % 2 == 0) + "\"}}");
+        }
+
+        JsonNode limited = invoke(handler, "{\"requestContext\":{\"authorizer\":{\"claims\":{\"sub\":\"user-1\"}}},"
+                + "\"pathParameters\":{\"cause_id\":\"a\",\"increment\":\"true\"}}");
+
+        assertEquals(429, limited.get("statusCode").asInt());
+        long retryAfter = limited.get("headers").get("Retry-After").asLong();
+        assertEquals(FollowRequestTemplate.rateLimitedBody(retryAfter), limited.get("body").asText());
+    }
+
+    private JsonNode invoke(IncrementCauseFollowerStreamHandler handler, String event) throws Exception {
+        return invoke(handler, new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonNode invoke(IncrementCauseFollowerStreamHandler handler, InputStream input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handler.handleRequest(input, output, context);
+        return objectMapper.readTree(output.toByteArray());
+    }
+}
@@ -0,0 +1,54 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacyFollowerBackfillTest {
+
+    @Test
+    void testLegacyFollowersAreTheFollowsWithoutAnEdge() {
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        cause(dynamoDb, "cause-1", 5);
+        cause(dynamoDb, "cause-2", 1);
+        edge(dynamoDb, "user-1", "cause-1");
+        edge(dynamoDb, "user-2", "cause-1");
+        edge(dynamoDb, FollowLedger.LEGACY_PREFIX + "user-3", "cause-1");
+        edge(dynamoDb, "user-1", "cause-2");
+        edge(dynamoDb, "user-2", "cause-2");
+
+        assertEquals(2, new LegacyFollowerBackfill(dynamoDb).run());
+
+        assertEquals(3, legacyFollowers(dynamoDb, "cause-1"));
+        assertEquals(0, legacyFollowers(dynamoDb, "cause-2"));
+        // a rerun leaves causes that were already backfilled alone
+        assertEquals(0, new LegacyFollowerBackfill(dynamoDb).run());
+    }
+
+    private static void cause(InMemoryDynamoDbClient dynamoDb, String causeId, long followerCount) {
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS(causeId),
+                        "follower_count", AttributeValue.fromN(Long.toString(followerCount))))
+                .build());
+    }
+
+    private static void edge(InMemoryDynamoDbClient dynamoDb, String userId, String causeId) {
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(FollowLedger.LEDGER_TABLE)
+                .item(Map.of("user_id", AttributeValue.fromS(userId), "cause_id", AttributeValue.fromS(causeId)))
+                .build());
+    }
+
+    private static long legacyFollowers(InMemoryDynamoDbClient dynamoDb, String causeId) {
+        return Long.parseLong(dynamoDb.item(CauseFollowerCounter.CAUSES_TABLE,
+                Map.of("cause_id", AttributeValue.fromS(causeId))).get(CauseFollowerCounter.LEGACY_FOLLOWERS_ATTR).n());
+    }
+}
@@ -0,0 +1,105 @@
+package com.boycottpro.causes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeRuntimeTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StubRuntimeApi runtimeApi;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        runtimeApi = new StubRuntimeApi();
+    }
+
+    @AfterEach
+    void tearDown() {
+        runtimeApi.close();
+    }
+
+    @Test
+    void testResponseIsPostedForTheInvocation() throws Exception {
+        NativeRuntime runtime = new NativeRuntime(runtimeApi.address(), (input, output, context) -> {
+            String event = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            output.write((event + "|" + context.getAwsRequestId() + "|" + context.getRemainingTimeInMillis()
+                    + "|" + context.getInvokedFunctionArn().endsWith(":increment-cause-follower-lambda"))
+                    .getBytes(StandardCharsets.UTF_8));
+        }, () -> NOW);
+        runtimeApi.enqueue("request-1", "{\"ping\":1}", NOW + 3_000);
+
+        assertEquals("request-1", runtime.processNext());
+
+        StubRuntimeApi.Result result = runtimeApi.awaitResult("request-1", 5_000);
+        assertFalse(result.error);
+        assertEquals("{\"ping\":1}|request-1|3000|true", result.body);
+        assertEquals("Root=1-00000000-000000000000000000000000",
+                System.getProperty("com.amazonaws.xray.traceHeader"));
+    }
+
+    @Test
+    void testHandlerFailureIsPostedAsAnError() throws Exception {
+        NativeRuntime runtime = new NativeRuntime(runtimeApi.address(), (input, output, context) -> {
+            throw new IllegalStateException("bad \"state\"\n");
+        }, () -> NOW);
+        runtimeApi.enqueue("request-2", "{}", NOW + 3_000);
+
+        runtime.processNext();
+
+        StubRuntimeApi.Result result = runtimeApi.awaitResult("request-2", 5_000);
+        assertTrue(result.error);
+        assertEquals("Unhandled", result.errorType);
+        JsonNode error = objectMapper.readTree(result.body);
+        assertEquals("bad \"state\"\n", error.get("errorMessage").asText());
+        assertEquals("java.lang.IllegalStateException", error.get("errorType").asText());
+    }
+
+    @Test
+    void testStreamHandlerServesSuccessiveInvocations() throws Exception {
+        InMemoryDynamoDbClient dynamoDb = new InMemoryDynamoDbClient()
+                .createTable(CauseFollowerCounter.CAUSES_TABLE, "cause_id")
+                .createTable(CauseFollowerCounter.SHARD_TABLE, "cause_id")
+                .createTable(FollowLedger.LEDGER_TABLE, "user_id", "cause_id");
+        dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(CauseFollowerCounter.CAUSES_TABLE)
+                .item(Map.of("cause_id", AttributeValue.fromS("cause-123")))
+                .build());
+        NativeRuntime runtime = new NativeRuntime(runtimeApi.address(),
+                new IncrementCauseFollowerStreamHandler(dynamoDb), System::currentTimeMillis);
+        String event;
+        try (InputStream input = getClass().getResourceAsStream("/api-gateway-follow-event.json")) {
+            event = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        runtimeApi.enqueue("follow", event, System.currentTimeMillis() + 3_000);
+        runtimeApi.enqueue("unauthorized", "{\"pathParameters\":{\"cause_id\":\"cause-123\"}}",
+                System.currentTimeMillis() + 3_000);
+
+        runtime.processNext();
+        runtime.processNext();
+
+        JsonNode followed = objectMapper.readTree(runtimeApi.awaitResult("follow", 5_000).body);
+        assertEquals(200, followed.get("statusCode").asInt());
+        JsonNode unauthorized = objectMapper.readTree(runtimeApi.awaitResult("unauthorized", 5_000).body);
+        assertEquals(401, unauthorized.get("statusCode").asInt());
+        assertEquals(1, dynamoDb.size(FollowLedger.LEDGER_TABLE));
+    }
+
+    @Test
+    void testRemainingTimeNeverGoesNegative() {
+        NativeRuntime.InvocationContext context = new NativeRuntime.InvocationContext("r", null, NOW, () -> NOW + 5);
+        assertEquals(0, context.getRemainingTimeInMillis());
+    }
+}
@@ -0,0 +1,21 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeCauseCacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        NegativeCauseCache cache = new NegativeCauseCache();
+
+        assertFalse(cache.isKnownMissing("bogus"));
+        cache.markMissing("bogus");
+        assertTrue(cache.isKnownMissing("bogus"));
+        assertTrue(cache.isKnownMissing("bogus"));
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+}
@@ -0,0 +1,40 @@
+package com.boycottpro.causes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentFollowCacheTest {
+
+    @Test
+    void testOnlyTheRecordedStateHits() {
+        RecentFollowCache cache = new RecentFollowCache();
+
+        assertFalse(cache.isAlready("user-1", "cause-1", true));
+        cache.record("user-1", "cause-1", true);
+        assertTrue(cache.isAlready("user-1", "cause-1", true));
+        assertFalse(cache.isAlready("user-1", "cause-1", false));
+        assertFalse(cache.isAlready("user-2", "cause-1", true));
+
+        cache.record("user-1", "cause-1", false);
+        assertTrue(cache.isAlready("user-1", "cause-1", false));
+
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    void testToggleFromAnotherContainerIsWrittenAfterTheDoubleTapWindow() {
+        AtomicLong now = new AtomicLong(1_000);
+        RecentFollowCache containerA = new RecentFollowCache(RecentFollowCache.DEFAULT_TTL_MS, 10, now::get);
+        containerA.record("user-1", "cause-1", true);
+        // container B unfollows; A has not seen it
+
+        now.addAndGet(RecentFollowCache.DEFAULT_TTL_MS);
+
+        assertFalse(containerA.isAlready("user-1", "cause-1", true));
+        assertTrue(RecentFollowCache.DEFAULT_TTL_MS <= 5_000);
+    }
+}
@@ -0,0 +1,149 @@
+package com.boycottpro.causes;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the Lambda Runtime API. Queued events are handed out by
+ * /invocation/next (which blocks like the real long poll), and whatever the
+ * runtime posts back to /response, /error or /init/error is captured.
+ */
+public class StubRuntimeApi implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stub-runtime-api");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BlockingQueue<Invocation> invocations = new LinkedBlockingQueue<>();
+    private final Map<String, CompletableFuture<Result>> results = new ConcurrentHashMap<>();
+    private final CompletableFuture<Long> firstPollNanos = new CompletableFuture<>();
+    private final CompletableFuture<String> initError = new CompletableFuture<>();
+
+    public StubRuntimeApi() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext(NativeRuntime.API_VERSION + "/invocation/", this::invocation);
+        server.createContext(NativeRuntime.API_VERSION + "/init/error", exchange -> {
+            initError.complete(body(exchange));
+            reply(exchange, 202, "{}");
+        });
+        server.start();
+    }
+
+    /**
+     * host:port, as it would appear in AWS_LAMBDA_RUNTIME_API.
+     */
+    public String address() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void enqueue(String requestId, String event, long deadlineMs) {
+        results.put(requestId, new CompletableFuture<>());
+        invocations.add(new Invocation(requestId, event, deadlineMs));
+    }
+
+    public Result awaitResult(String requestId, long timeoutMs) throws Exception {
+        return results.get(requestId).get(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public long awaitFirstPollNanos(long timeoutMs) throws Exception {
+        return firstPollNanos.get(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public String awaitInitError(long timeoutMs) throws Exception {
+        return initError.get(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void invocation(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/invocation/next")) {
+            firstPollNanos.complete(System.nanoTime());
+            Invocation next;
+            try {
+                next = invocations.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", next.requestId);
+            exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", Long.toString(next.deadlineMs));
+            exchange.getResponseHeaders().add("Lambda-Runtime-Invoked-Function-Arn",
+                    "arn:aws:lambda:us-east-1:000000000000:function:increment-cause-follower-lambda");
+            exchange.getResponseHeaders().add("Lambda-Runtime-Trace-Id", "Root=1-00000000-000000000000000000000000");
+            reply(exchange, 200, next.event);
+            return;
+        }
+        String[] parts = path.split("/");
+        String requestId = parts[parts.length - 2];
+        boolean error = path.endsWith("/error");
+        String body = body(exchange);
+        String errorType = exchange.getRequestHeaders().getFirst("Lambda-Runtime-Function-Error-Type");
+        reply(exchange, 202, "{\"status\":\"OK\"}");
+        CompletableFuture<Result> result = results.get(requestId);
+        if (result != null) {
+            result.complete(new Result(error, body, errorType, System.nanoTime()));
+        }
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static final class Result {
+        public final boolean error;
+        public final String body;
+        public final String errorType;
+        public final long receivedNanos;
+
+        private Result(boolean error, String body, String errorType, long receivedNanos) {
+            this.error = error;
+            this.body = body;
+            this.errorType = errorType;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
+    private static final class Invocation {
+        private final String requestId;
+        private final String event;
+        private final long deadlineMs;
+
+        private Invocation(String requestId, String event, long deadlineMs) {
+            this.requestId = requestId;
+            this.event = event;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}